@@ -0,0 +1,112 @@
+package dev.controllers;
+
+import dev.models.AemetColumnStore;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Esta clase genera los conjuntos de datos de los benchmarks a partir de los CSV del directorio de datos.
+ * Las lineas de los ficheros originales se repiten, dia tras dia, hasta alcanzar el numero de filas pedido,
+ * conservando la codificacion Windows-1252 de los originales.
+ */
+public class DatosBenchmark {
+    private static final DateTimeFormatter FORMATO_NOMBRE = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final LocalDate PRIMER_DIA = LocalDate.of(2017, 10, 29);
+
+    private DatosBenchmark() {
+    }
+
+    /**
+     * Genera un almacen con el numero de filas indicado, leyendolo de un directorio temporal que se borra despues.
+     *
+     * @param filas El numero de filas que se desean generar.
+     * @return El almacen con las mediciones generadas.
+     * @throws IOException Si ocurre un error al generar o leer los ficheros.
+     */
+    public static AemetColumnStore generarDatos(int filas) throws IOException {
+        Path directorio = generarDirectorio(filas);
+        try {
+            return AemetController.leerDirectorio(directorio);
+        } finally {
+            borrar(directorio);
+        }
+    }
+
+    /**
+     * Crea un directorio temporal con ficheros "AemetYYYYMMDD.csv" que suman el numero de filas indicado.
+     *
+     * @param filas El numero de filas que se desean generar.
+     * @return El directorio temporal con los ficheros generados.
+     * @throws IOException Si ocurre un error al leer los originales o al escribir los ficheros.
+     */
+    public static Path generarDirectorio(int filas) throws IOException {
+        Path origen = AemetController.directorioDatos();
+        List<List<byte[]>> lineasPorFichero = new ArrayList<>();
+        for (String nombre : AemetController.listarFicheros(origen)) {
+            lineasPorFichero.add(lineas(Files.readAllBytes(origen.resolve(nombre + ".csv"))));
+        }
+
+        Path destino = Files.createTempDirectory("aemet-bench");
+        int escritas = 0;
+        for (int fichero = 0; escritas < filas; fichero++) {
+            List<byte[]> lineas = lineasPorFichero.get(fichero % lineasPorFichero.size());
+            String nombre = "Aemet" + PRIMER_DIA.plusDays(fichero).format(FORMATO_NOMBRE) + ".csv";
+            try (OutputStream out = Files.newOutputStream(destino.resolve(nombre))) {
+                for (int i = 0; i < lineas.size() && escritas < filas; i++, escritas++) {
+                    out.write(lineas.get(i));
+                }
+            }
+        }
+        return destino;
+    }
+
+    /**
+     * Borra un directorio temporal creado por {@link #generarDirectorio(int)} y todo su contenido.
+     *
+     * @param directorio El directorio que se desea borrar.
+     */
+    public static void borrar(Path directorio) {
+        try (Stream<Path> rutas = Files.walk(directorio)) {
+            rutas.sorted(Comparator.reverseOrder()).forEach(ruta -> {
+                try {
+                    Files.delete(ruta);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Separa el contenido de un fichero en lineas, cada una con su salto de linea final.
+     */
+    private static List<byte[]> lineas(byte[] contenido) {
+        List<byte[]> lineas = new ArrayList<>();
+        int inicio = 0;
+        for (int i = 0; i < contenido.length; i++) {
+            if (contenido[i] == '\n') {
+                lineas.add(Arrays.copyOfRange(contenido, inicio, i + 1));
+                inicio = i + 1;
+            }
+        }
+        if (inicio < contenido.length) {
+            byte[] ultima = Arrays.copyOf(Arrays.copyOfRange(contenido, inicio, contenido.length), contenido.length - inicio + 1);
+            ultima[ultima.length - 1] = '\n';
+            lineas.add(ultima);
+        }
+        return lineas;
+    }
+}
@@ -0,0 +1,47 @@
+package dev.controllers;
+
+import dev.models.Aemet;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de la exportacion a JSON de {@link ExportJSON} en cada uno de sus formatos, a un fichero temporal.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExportJSONBenchmark {
+    @Param({"2261", "22610", "226100"})
+    private int filas;
+
+    @Param({"LEGIBLE", "COMPACTO", "NDJSON"})
+    private ExportJSON.Formato formato;
+
+    private final ExportJSON exportJSON = new ExportJSON();
+    private List<Aemet> mediciones;
+    private Path fichero;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        mediciones = DatosBenchmark.generarDatos(filas).aLista();
+        fichero = Files.createTempFile("aemet-bench", ".json");
+    }
+
+    @TearDown(Level.Trial)
+    public void limpiar() throws IOException {
+        Files.deleteIfExists(fichero);
+    }
+
+    @Benchmark
+    public void exportar() throws IOException {
+        exportJSON.exportar(mediciones.iterator(), fichero, formato, false);
+    }
+}
@@ -0,0 +1,167 @@
+package dev.controllers;
+
+import dev.models.Aemet;
+import dev.models.AemetColumnStore;
+import dev.models.AgrupacionRanking;
+import dev.models.ConsultaRanking;
+import dev.models.CriterioRanking;
+import dev.models.GrupoAemet;
+import dev.models.GrupoRanking;
+import dev.models.TotalesRango;
+import dev.models.ResumenAemet;
+import dev.services.AemetAggregator;
+import dev.services.AemetRanking;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de los informes de {@link AemetController}.
+ * El resumen se calcula una vez al preparar el estado, como en la aplicacion, asi que los informes miden
+ * el recorrido y la impresion de sus resultados; {@link #agregar()} mide el calculo del resumen.
+ * Los informes que repiten una consulta la encuentran en la cache de resultados; {@link #informeProvinciaSinCache()}
+ * mide el mismo calculo que {@link #informeProvincia()} sin pasar por ella.
+ * La salida estandar se descarta mientras dura la medicion.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InformesBenchmark {
+    @Param({"2261", "22610", "226100"})
+    private int filas;
+
+    private AemetColumnStore datos;
+    private AemetController controlador;
+    private PrintStream salidaOriginal;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        datos = DatosBenchmark.generarDatos(filas);
+        controlador = new AemetController(datos);
+        controlador.getResumen();
+        controlador.getVersion().getIndiceDias();
+        salidaOriginal = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void limpiar() {
+        System.setOut(salidaOriginal);
+    }
+
+    @Benchmark
+    public ResumenAemet agregar() {
+        return AemetAggregator.agregar(datos);
+    }
+
+    @Benchmark
+    public ResumenAemet agregarSecuencial() {
+        return AemetAggregator.agregarSecuencial(datos, 0, datos.tamano());
+    }
+
+    @Benchmark
+    public ResumenAemet agregarParalelo() {
+        return AemetAggregator.agregarParalelo(datos, 0, datos.tamano());
+    }
+
+    @Benchmark
+    public void maximaYMinimaTemperaturaporDia() {
+        controlador.MaximaYMinimaTemperaturaporDia();
+    }
+
+    @Benchmark
+    public void maximaTemperaturaProvinciasydia() {
+        controlador.MaximaTemperaturaProvinciasydia();
+    }
+
+    @Benchmark
+    public void minimaTemperaturaProvinciasydia() {
+        controlador.MinimaTemperaturaProvinciasydia();
+    }
+
+    @Benchmark
+    public void mediaTemperaturaProvinciasyDia() {
+        controlador.MediaTemperaturaProvinciasyDia();
+    }
+
+    @Benchmark
+    public void precipitacionMaximaDiasLocalidad() {
+        controlador.PrecipitacionMaximaDiasLocalidad();
+    }
+
+    @Benchmark
+    public void precipitacionMediaProvinciasyDias() {
+        controlador.PrecipitacionMediaProvinciasyDias();
+    }
+
+    @Benchmark
+    public void lugaresLlovidoProvinciasYDia() {
+        controlador.LugaresLlovidoProvinciasYDia();
+    }
+
+    @Benchmark
+    public void distribucionProvinciasYDia() {
+        controlador.DistribucionProvinciasYDia();
+    }
+
+    @Benchmark
+    public void lugaresLLovidoMas() {
+        controlador.LugaresLLovidoMas();
+    }
+
+    @Benchmark
+    public Map<LocalDate, GrupoAemet> provinciaReport() {
+        return controlador.ProvinciaReport("Madrid");
+    }
+
+    @Benchmark
+    public Map<LocalDate, GrupoAemet> informeProvincia() {
+        return controlador.getInformeProvincia("Madrid");
+    }
+
+    @Benchmark
+    public Map<LocalDate, GrupoAemet> informeProvinciaSinCache() {
+        return AemetController.informeProvincia(controlador.getVersion(), "Madrid");
+    }
+
+    @Benchmark
+    public List<GrupoRanking> rankingPorProvinciaSinCache() {
+        ConsultaRanking consulta = ConsultaRanking.builder()
+                .criterio(CriterioRanking.MAS_CALUROSO)
+                .agrupacion(AgrupacionRanking.PROVINCIA)
+                .k(10)
+                .build();
+        return AemetRanking.calcular(controlador.getVersion(), consulta);
+    }
+
+    @Benchmark
+    public TotalesRango totalesEstacion() {
+        Aemet estacion = datos.fila(0);
+        return controlador.totalesEstacion(estacion.getLocalidad(), estacion.getProvincia(), estacion.getDia(), estacion.getDia().plusDays(30));
+    }
+
+    @Benchmark
+    public double totalesEstacionRecorrido() {
+        int localidad = datos.localidad(0);
+        int provincia = datos.provincia(0);
+        int desde = datos.dia(0);
+        int hasta = desde + 30;
+        double precipitacion = 0;
+        for (int fila = 0; fila < datos.tamano(); fila++) {
+            int dia = datos.dia(fila);
+            if (datos.localidad(fila) == localidad && datos.provincia(fila) == provincia && dia >= desde && dia <= hasta) {
+                precipitacion += datos.precipitacion(fila);
+            }
+        }
+        return precipitacion;
+    }
+}
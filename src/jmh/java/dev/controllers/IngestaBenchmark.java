@@ -0,0 +1,70 @@
+package dev.controllers;
+
+import dev.models.AemetColumnStore;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de la lectura de los CSV: la lectura en una pasada fichero a fichero y en paralelo,
+ * y la forma anterior con conversion a un fichero "_convertido.csv".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngestaBenchmark {
+    @Param({"2261", "22610", "226100"})
+    private int filas;
+
+    private Path directorio;
+    private Path convertidos;
+    private List<String> nombres;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        directorio = DatosBenchmark.generarDirectorio(filas);
+        convertidos = Files.createTempDirectory("aemet-bench-convertidos");
+        nombres = AemetController.listarFicheros(directorio);
+    }
+
+    @TearDown(Level.Trial)
+    public void limpiar() {
+        DatosBenchmark.borrar(directorio);
+        DatosBenchmark.borrar(convertidos);
+    }
+
+    @Benchmark
+    public void leerCSV(Blackhole bh) {
+        for (String nombre : nombres) {
+            bh.consume(AemetController.leerCSV(directorio, nombre));
+        }
+    }
+
+    @Benchmark
+    public AemetColumnStore leerDirectorio() throws IOException {
+        return AemetController.leerDirectorio(directorio);
+    }
+
+    @Benchmark
+    public void convertFileToUtf8() throws IOException {
+        for (String nombre : nombres) {
+            AemetController.convertFileToUtf8(directorio.resolve(nombre + ".csv").toString(),
+                    convertidos.resolve(nombre + "_convertido.csv").toString());
+        }
+    }
+
+    @Benchmark
+    public void leerCSVConvertido(Blackhole bh) throws IOException {
+        for (String nombre : nombres) {
+            bh.consume(AemetController.leerCSVConvertido(directorio, nombre));
+        }
+    }
+}
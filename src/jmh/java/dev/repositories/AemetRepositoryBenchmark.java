@@ -0,0 +1,100 @@
+package dev.repositories;
+
+import dev.controllers.DatosBenchmark;
+import dev.models.Aemet;
+import dev.models.AemetColumnStore;
+import dev.services.DatabaseManager;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Benchmarks de {@link AemetRepositoryImpl} contra un fichero SQLite temporal con el numero de filas indicado.
+ * La base de datos se indica a {@link DatabaseManager} con las propiedades del sistema "database.connectionUrl"
+ * y "database.initTables", antes de crear la instancia.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AemetRepositoryBenchmark {
+    @Param({"2261", "22610", "226100"})
+    private int filas;
+
+    private Path fichero;
+    private DatabaseManager db;
+    private AemetRepositoryImpl repositorio;
+    private AemetColumnStore datos;
+    private List<Aemet> lista;
+    private int diasDatos;
+    private int siguiente;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException, SQLException {
+        datos = DatosBenchmark.generarDatos(filas);
+
+        fichero = Files.createTempFile("aemet-bench", ".db");
+        System.setProperty("database.connectionUrl", "jdbc:sqlite:" + fichero);
+        System.setProperty("database.initTables", "true");
+        db = DatabaseManager.getInstance();
+        repositorio = AemetRepositoryImpl.getInstance(db);
+        db.setCargaMasiva(true);
+        lista = datos.aLista();
+        // El almacen generado esta ordenado por dia.
+        diasDatos = datos.dia(datos.tamano() - 1) - datos.dia(0) + 1;
+        repositorio.saveAll(lista);
+        db.setCargaMasiva(false);
+    }
+
+    @TearDown(Level.Trial)
+    public void limpiar() throws Exception {
+        db.close();
+        for (String sufijo : new String[]{"", "-wal", "-shm"}) {
+            Files.deleteIfExists(Path.of(fichero + sufijo));
+        }
+    }
+
+    @Benchmark
+    public Aemet save() throws SQLException {
+        // Cada llamada construye un objeto nuevo, sin id, a partir del almacen. Solo puede haber una medicion por
+        // estacion y dia, asi que cada vuelta al almacen se desplaza a dias que todavia no tienen mediciones.
+        Aemet aemet = datos.fila(siguiente % datos.tamano());
+        aemet.setDia(aemet.getDia().plusDays((long) diasDatos * (siguiente / datos.tamano() + 1)));
+        siguiente++;
+        return repositorio.save(aemet);
+    }
+
+    @Benchmark
+    public int upsertAllSinCambios() throws SQLException {
+        // Repetir la importacion inicial: todas las filas existen y son iguales, asi que no se reescribe ninguna.
+        return repositorio.upsertAll(lista);
+    }
+
+    @Benchmark
+    public List<Aemet> findAll() throws SQLException {
+        return repositorio.findAll();
+    }
+
+    @Benchmark
+    public void streamAll(Blackhole bh) throws SQLException {
+        try (Stream<Aemet> stream = repositorio.streamAll()) {
+            stream.forEach(bh::consume);
+        }
+    }
+
+    @Benchmark
+    public Optional<Aemet> findById() throws SQLException {
+        return repositorio.findById(ThreadLocalRandom.current().nextLong(1, filas + 1));
+    }
+}
@@ -6,97 +6,396 @@ import com.google.gson.reflect.TypeToken;
 import com.opencsv.CSVReader;
 import com.opencsv.exceptions.CsvValidationException;
 import dev.models.Aemet;
+import dev.models.Acumulador;
+import dev.models.AemetColumnStore;
+import dev.models.ConsultaRanking;
+import dev.models.DatosAemet;
+import dev.models.EntradaRanking;
+import dev.models.GrupoAemet;
+import dev.models.GrupoRanking;
+import dev.models.IndiceDias;
+import dev.models.IndiceProvincias;
+import dev.models.ResumenAemet;
+import dev.models.TotalesRango;
+import dev.services.AemetAggregator;
+import dev.services.AemetCsvReader;
+import dev.services.AemetDirectoryWatcher;
+import dev.services.AemetMetrics;
+import dev.services.AemetRanking;
+import dev.services.AemetSnapshot;
+import dev.utils.KllSketch;
+import dev.utils.ResultCache;
+import dev.utils.StringDictionary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 /**
  * Esta clase es el controlador principal para gestionar los datos meteorologicos obtenidos de los CSV.
  * Este se encarga de cargar los datos, leer los csv, leer bien los datos de las fechas del csv, y las Api Stream.
+ * Los datos se publican como versiones inmutables ({@link DatosAemet}): cada consulta trabaja sobre la version
+ * vigente al empezar, sin bloqueos, mientras una actualizacion prepara la siguiente y la publica de forma atomica.
  */
 public class AemetController {
-    private static AemetController instance;
-    ArrayList<Aemet> lista = new ArrayList<>();
+    private static final Logger logger = LoggerFactory.getLogger(AemetController.class);
+    private static final Pattern PATRON_FICHERO = Pattern.compile("Aemet\\d{8}\\.csv");
+    private static final String FICHERO_SNAPSHOT = "aemet.snapshot";
+    // "H" admite la hora con uno o dos digitos, asi que no hace falta completar "7:05" con un cero.
+    private static final DateTimeFormatter FORMATO_HORA = DateTimeFormatter.ofPattern("H:mm");
+    private static final int CAPACIDAD_CACHE = 256;
+    private static volatile AemetController instance;
+    private final AtomicReference<DatosAemet> actual = new AtomicReference<>();
+    private final ResultCache cache = new ResultCache(CAPACIDAD_CACHE);
+    private final AemetMetrics metricas = AemetMetrics.getInstance();
 
     // Constructor privado para implementar Singleton y cargar datos.
     private AemetController() throws IOException {
         loadData();
     }
 
+    /**
+     * Crea un controlador sobre un almacen ya cargado, sin leer el directorio de datos.
+     * Lo usan los benchmarks para medir los informes con conjuntos de datos de distinto tamaño.
+     *
+     * @param datos El almacen de mediciones.
+     */
+    AemetController(AemetColumnStore datos) {
+        actual.set(new DatosAemet(1, datos, null));
+    }
+
     /**
      * Obtiene la lista de objetos Aemet.
+     * Los objetos se construyen en cada llamada a partir de la version vigente, asi que la lista es del llamante
+     * y no cambia aunque despues se publique otra version.
      *
      * @return ArrayList de objetos Aemet.
      */
     public ArrayList<Aemet> getLista() {
-        return lista;
+        return actual.get().getLista();
+    }
+
+    /**
+     * Obtiene la version vigente de los datos. Para hacer varias consultas coherentes entre si hay que
+     * hacerlas todas sobre la misma version, en lugar de volver a pedirla.
+     *
+     * @return La version vigente de los datos.
+     */
+    public DatosAemet getVersion() {
+        return actual.get();
+    }
+
+    /**
+     * Obtiene el almacen por columnas con las mediciones de la version vigente, que es de solo lectura.
+     *
+     * @return El almacen de mediciones.
+     */
+    public AemetColumnStore getDatos() {
+        return actual.get().getDatos();
+    }
+
+    /**
+     * Obtiene la cache de resultados de los informes, con sus contadores de aciertos y fallos.
+     *
+     * @return La cache de resultados.
+     */
+    public ResultCache getCache() {
+        return cache;
     }
 
     /**
      * Obtiene una instancia unica de la clase AemetController.
+     * Si varios hilos la piden a la vez antes de crearse, los datos se cargan una sola vez.
      *
      * @return La instancia unica de AemetController.
      * @throws IOException Si hay un error al cargar los datos.
      */
     public static AemetController getInstance() throws IOException {
-        if (instance == null) {
-            instance = new AemetController();
+        AemetController controlador = instance;
+        if (controlador == null) {
+            synchronized (AemetController.class) {
+                controlador = instance;
+                if (controlador == null) {
+                    controlador = new AemetController();
+                    instance = controlador;
+                }
+            }
         }
-        return instance;
+        return controlador;
     }
 
     /**
      * Carga los datos de los archivos CSV.
+     * Si hay un snapshot binario de una carga anterior y los CSV no han cambiado desde entonces, se carga
+     * el snapshot en lugar de volver a leer los CSV; si no, se leen los CSV y se escribe el snapshot.
+     * Si algun CSV no se puede leer, el snapshot no se escribe, para que el siguiente arranque lo vuelva a leer.
      *
      * @throws IOException Si se produce un error durante la lectura o carga de los archivos CSV.
      */
     private void loadData() throws IOException {
-        cargarCSV();
+        Path directorio = directorioDatos();
+        List<String> nombres = listarFicheros(directorio);
+        List<Path> ficheros = nombres.stream()
+                .map(nombre -> directorio.resolve(nombre + ".csv"))
+                .toList();
+        Path snapshot = directorio.resolve(FICHERO_SNAPSHOT);
+        Optional<AemetColumnStore> guardados = AemetSnapshot.leer(snapshot, ficheros);
+        AemetColumnStore datos;
+        if (guardados.isPresent()) {
+            datos = guardados.get();
+        } else {
+            List<String> fallidos = new ArrayList<>();
+            datos = cargarCSV(directorio, nombres, fallidos);
+            if (fallidos.isEmpty()) {
+                guardarSnapshot(datos, ficheros, snapshot);
+            } else {
+                // El manifiesto daria por cargados los ficheros que fallaron y no se volverian a leer.
+                logger.warn("No se guarda la instantanea porque no se pudieron leer " + fallidos);
+            }
+        }
+        actual.set(new DatosAemet(1, datos, null));
+    }
+
+    private static void guardarSnapshot(AemetColumnStore datos, List<Path> ficheros, Path snapshot) {
+        try {
+            AemetSnapshot.escribir(datos, ficheros, snapshot);
+        } catch (IOException e) {
+            logger.error("No se pudo guardar la instantanea " + snapshot + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Empieza a vigilar el directorio de datos: cada vez que aparece un fichero "AemetYYYYMMDD.csv" nuevo
+     * o cambia uno existente, se incorpora con {@link #actualizar(List)} sin recargar el resto.
+     *
+     * @return El vigilante, que debe cerrarse para dejar de vigilar.
+     * @throws IOException Si no se puede vigilar el directorio de datos.
+     */
+    public AemetDirectoryWatcher vigilar() throws IOException {
+        AemetDirectoryWatcher vigilante = new AemetDirectoryWatcher(directorioDatos(), PATRON_FICHERO, this::actualizar);
+        vigilante.iniciar();
+        return vigilante;
+    }
+
+    /**
+     * Incorpora a los datos cargados unos ficheros CSV nuevos o modificados, leyendo solo esos ficheros.
+     * Si el dia de un fichero no estaba cargado, sus filas se añaden al final y sus grupos se combinan con el
+     * resumen existente. Si ya estaba cargado, se sustituyen las filas de ese dia y el resumen se vuelve a
+     * calcular desde memoria, porque un maximo o un minimo no se pueden descontar.
+     * Los cambios se hacen sobre una copia del almacen y se publican como una version nueva, de modo que las
+     * consultas en curso terminan sobre la version anterior. Las actualizaciones se hacen de una en una.
+     * Si un fichero ya no existe se eliminan las filas de su dia; si existe pero no se puede leer, se conservan
+     * las que habia y no se guarda la instantanea, para volver a leerlo en el siguiente arranque.
+     *
+     * @param ficheros Los ficheros "AemetYYYYMMDD.csv" nuevos, modificados o borrados.
+     */
+    public synchronized void actualizar(List<Path> ficheros) {
+        List<String> nombres = ficheros.stream()
+                .map(fichero -> fichero.getFileName().toString())
+                .filter(nombre -> PATRON_FICHERO.matcher(nombre).matches())
+                .map(nombre -> nombre.substring(0, nombre.length() - ".csv".length()))
+                .toList();
+        if (nombres.isEmpty()) {
+            return;
+        }
+        Path directorio = ficheros.get(0).getParent();
+        // Los ficheros borrados no se leen: su dia se elimina sin mas.
+        List<Optional<AemetColumnStore>> porFichero = nombres.parallelStream()
+                .map(nombreFichero -> Files.notExists(directorio.resolve(nombreFichero + ".csv"))
+                        ? Optional.<AemetColumnStore>empty()
+                        : leerCSV(directorio, nombreFichero))
+                .toList();
+
+        // Un fichero que existe pero no se pudo leer (por ejemplo, porque aun se esta escribiendo) conserva las
+        // filas anteriores de su dia; solo se elimina el dia de los ficheros que ya no existen.
+        List<String> aplicados = new ArrayList<>();
+        List<AemetColumnStore> leidos = new ArrayList<>();
+        for (int i = 0; i < nombres.size(); i++) {
+            String nombre = nombres.get(i);
+            Optional<AemetColumnStore> leido = porFichero.get(i);
+            if (leido.isPresent() || Files.notExists(directorio.resolve(nombre + ".csv"))) {
+                aplicados.add(nombre);
+                leido.ifPresent(leidos::add);
+            }
+        }
+        if (aplicados.isEmpty()) {
+            return;
+        }
+        boolean fallidos = aplicados.size() < nombres.size();
+
+        DatosAemet anterior = actual.get();
+        AemetColumnStore datos = anterior.getDatos().copiar();
+        boolean sustituidos = false;
+        for (String nombre : aplicados) {
+            sustituidos |= datos.eliminarDia((int) getDia(nombre).toEpochDay()) > 0;
+        }
+        int desde = datos.tamano();
+        leidos.forEach(datos::anadirTodos);
+
+        // La copia conserva los codigos de localidad y provincia, asi que los grupos del resumen anterior siguen valiendo.
+        ResumenAemet resumen = anterior.getResumenCalculado();
+        if (resumen != null) {
+            if (sustituidos) {
+                resumen = AemetAggregator.agregar(datos);
+            } else {
+                ResumenAemet nuevo = new ResumenAemet(datos);
+                nuevo.combinar(resumen);
+                nuevo.combinar(AemetAggregator.agregar(datos, desde, datos.tamano()));
+                resumen = nuevo;
+            }
+        }
+        actual.set(new DatosAemet(anterior.getVersion() + 1, datos, resumen));
+        // Los resultados de la version anterior ya no se pueden encontrar; se liberan sin esperar a que caduquen.
+        cache.invalidar();
+
+        if (fallidos) {
+            // La instantanea daria por cargado el contenido actual de los ficheros que fallaron; sin guardarla,
+            // el siguiente arranque los vuelve a leer.
+            logger.warn("No se guarda la instantanea porque algun fichero no se pudo leer");
+            return;
+        }
+        try {
+            List<Path> todos = listarFicheros(directorio).stream()
+                    .map(nombre -> directorio.resolve(nombre + ".csv"))
+                    .toList();
+            guardarSnapshot(datos, todos, directorio.resolve(FICHERO_SNAPSHOT));
+        } catch (IOException e) {
+            logger.error("No se pudo listar el directorio " + directorio + " para guardar la instantanea: " + e.getMessage(), e);
+        }
     }
 
     /**
      * Muestra todas las mediciones meteorologicas en la lista.
      */
     public void mostrar() {
-        lista.forEach(aemet -> System.out.println(aemet));
+        getDatos().filas().forEach(aemet -> System.out.println(aemet));
     }
 
     /**
      * Carga datos desde los archivos CSV y los convierte a objetos Aemet.
      *
-     * @throws IOException Si se produce un error durante la lectura o carga de los archivos CSV.
+     * @param directorio El directorio de datos.
+     * @param nombres    Los nombres, sin extension, de los ficheros "AemetYYYYMMDD.csv" que se cargan.
+     * @param fallidos   La lista donde se añaden los nombres de los ficheros que no se han podido leer.
+     * @return El almacen con las mediciones leidas.
      */
-    private void cargarCSV() throws IOException {
-        leerCSV("Aemet20171029");
-        leerCSV("Aemet20171030");
-        leerCSV("Aemet20171031");
+    private AemetColumnStore cargarCSV(Path directorio, List<String> nombres, List<String> fallidos) {
+        AemetColumnStore datos = leerFicheros(directorio, nombres, fallidos);
+        datos.compactar();
+        return datos;
+    }
+
+    /**
+     * Descubre todos los ficheros "AemetYYYYMMDD.csv" de un directorio y los lee en paralelo en el pool fork-join comun.
+     * El resultado queda ordenado por dia y, dentro de cada dia, en el orden de las filas del fichero.
+     *
+     * @param directorio El directorio donde se buscan los archivos CSV.
+     * @return El almacen con las mediciones de todos los ficheros encontrados.
+     * @throws IOException Si se produce un error al listar el directorio.
+     */
+    static AemetColumnStore leerDirectorio(Path directorio) throws IOException {
+        // Los ficheros que no se pueden leer se omiten.
+        return leerFicheros(directorio, listarFicheros(directorio), new ArrayList<>());
+    }
+
+    /**
+     * Lee en paralelo en el pool fork-join comun unos ficheros "AemetYYYYMMDD.csv" de un directorio.
+     * El resultado queda en el orden de los nombres y, dentro de cada fichero, en el orden de sus filas.
+     *
+     * @param directorio El directorio de los ficheros.
+     * @param nombres    Los nombres de los ficheros, sin extension.
+     * @param fallidos   La lista donde se añaden los nombres de los ficheros que no se han podido leer.
+     * @return El almacen con las mediciones de los ficheros leidos.
+     */
+    static AemetColumnStore leerFicheros(Path directorio, List<String> nombres, List<String> fallidos) {
+        // El stream paralelo conserva el orden de encuentro al recoger, por lo que la union es determinista.
+        List<Optional<AemetColumnStore>> porFichero = nombres.parallelStream()
+                .map(nombreFichero -> leerCSV(directorio, nombreFichero))
+                .toList();
+
+        AemetColumnStore leidos = new AemetColumnStore();
+        for (int i = 0; i < nombres.size(); i++) {
+            Optional<AemetColumnStore> leido = porFichero.get(i);
+            if (leido.isPresent()) {
+                leidos.anadirTodos(leido.get());
+            } else {
+                fallidos.add(nombres.get(i));
+            }
+        }
+        return leidos;
+    }
+
+    /**
+     * Obtiene los nombres, sin extension, de los ficheros "AemetYYYYMMDD.csv" de un directorio, ordenados por dia.
+     *
+     * @param directorio El directorio donde se buscan los archivos CSV.
+     * @return Los nombres de los ficheros encontrados.
+     * @throws IOException Si se produce un error al listar el directorio.
+     */
+    static List<String> listarFicheros(Path directorio) throws IOException {
+        try (Stream<Path> ficheros = Files.list(directorio)) {
+            // Los nombres comparten el prefijo "Aemet", asi que el orden alfabetico es el orden por dia.
+            return ficheros
+                    .map(fichero -> fichero.getFileName().toString())
+                    .filter(nombre -> PATRON_FICHERO.matcher(nombre).matches())
+                    .map(nombre -> nombre.substring(0, nombre.length() - ".csv".length()))
+                    .sorted()
+                    .toList();
+        }
     }
 
     /**
      * Lee los archivos CSV y los convierte en objetos de Aemet.
+     * El fichero se decodifica desde Windows-1252 y se separa en campos en una sola pasada,
+     * sin generar el fichero intermedio "_convertido.csv".
      *
+     * @param directorio    El directorio donde se encuentra el archivo CSV.
      * @param nombreFichero El nombre del archivo CSV a leer.
+     * @return El almacen con las mediciones leidas, o vacio si el fichero no se pudo leer.
+     */
+    static Optional<AemetColumnStore> leerCSV(Path directorio, String nombreFichero) {
+        AemetColumnStore leidos = new AemetColumnStore();
+        try {
+            AemetCsvReader.leer(directorio.resolve(nombreFichero + ".csv"), getDia(nombreFichero), leidos);
+            return Optional.of(leidos);
+        } catch (IOException e) {
+            AemetMetrics.getInstance().registrarErrorLectura();
+            logger.error("No se pudo leer el fichero " + nombreFichero + ".csv: " + e.getMessage(), e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Lee un archivo CSV convirtiendolo antes a UTF-8 en un fichero "_convertido.csv" y releyendolo con OpenCSV.
+     * Es la forma de lectura anterior; se conserva para comparar su rendimiento con {@link AemetCsvReader}.
+     *
+     * @param directorio    El directorio donde se encuentra el archivo CSV.
+     * @param nombreFichero El nombre del archivo CSV a leer.
+     * @return La lista de objetos Aemet leidos.
      * @throws IOException Si se produce un error durante la lectura del archivo o la conversion de datos.
      */
-    private void leerCSV(String nombreFichero) throws IOException {
-        // Obtiene la ruta relativa al directorio de datos.
-        Path relativePath = Paths.get("");
-        String rutaRelativa = relativePath.toAbsolutePath().toString();
-        String directorio = rutaRelativa + File.separator + "data";
-        String CSVFichero = directorio + File.separator + nombreFichero + ".csv";
-        String CSVFicheroConvertido = directorio + File.separator + nombreFichero + "_convertido.csv";
+    static List<Aemet> leerCSVConvertido(Path directorio, String nombreFichero) throws IOException {
+        String CSVFichero = directorio.resolve(nombreFichero + ".csv").toString();
+        String CSVFicheroConvertido = directorio.resolve(nombreFichero + "_convertido.csv").toString();
+        List<Aemet> leidos = new ArrayList<>();
 
         // Convierte el archivo CSV al formato UTF-8 para manejar caracteres especiales.
         convertFileToUtf8(CSVFichero, CSVFicheroConvertido);
 
-        try (CSVReader reader = new CSVReader(new FileReader(CSVFicheroConvertido))) {
+        try (CSVReader reader = new CSVReader(new InputStreamReader(new FileInputStream(CSVFicheroConvertido), StandardCharsets.UTF_8))) {
             String[] line;
             reader.readNext();
             while ((line = reader.readNext()) != null) {
@@ -113,14 +412,22 @@ public class AemetController {
                             .precipitacion(Double.parseDouble(datos[6]))
                             .dia(getDia(nombreFichero))
                             .build();
-                    lista.add(aemet);
+                    leidos.add(aemet);
                 }
             }
-        } catch (IOException e) {
-            e.printStackTrace();
         } catch (CsvValidationException e) {
             throw new RuntimeException(e);
         }
+        return leidos;
+    }
+
+    /**
+     * Obtiene la ruta del directorio de datos, relativa al directorio de trabajo.
+     *
+     * @return La ruta absoluta del directorio "data".
+     */
+    static Path directorioDatos() {
+        return Paths.get("").toAbsolutePath().resolve("data");
     }
 
     /**
@@ -144,14 +451,13 @@ public class AemetController {
     }
 
     /**
-     * Convierte una cadena de hora en formato "HH:mm" en un objeto LocalTime.
+     * Convierte una cadena de hora en formato "H:mm" o "HH:mm" en un objeto LocalTime.
      *
-     * @param hora La cadena de hora en formato "HH:mm".
+     * @param hora La cadena de hora en formato "H:mm" o "HH:mm".
      * @return Un objeto LocalTime que representa la hora.
      */
-    private LocalTime getHora(String hora) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm");
-        return hora.length() == 4 ? LocalTime.parse("0" + hora, formatter) : LocalTime.parse(hora, formatter);
+    static LocalTime getHora(String hora) {
+        return LocalTime.parse(hora, FORMATO_HORA);
     }
 
     /**
@@ -160,375 +466,391 @@ public class AemetController {
      * @param dia La cadena de fecha en formato "yyyyMMdd".
      * @return Un objeto LocalDate que representa la fecha.
      */
-    private LocalDate getDia(String dia) {
-        dia = dia.substring(5);
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMdd");
-        return LocalDate.parse(dia, formatter);
+    static LocalDate getDia(String dia) {
+        // "AemetYYYYMMDD": los digitos se leen en su posicion, sin subcadenas ni formateador.
+        return LocalDate.of(Integer.parseInt(dia, 5, 9, 10), Integer.parseInt(dia, 9, 11, 10), Integer.parseInt(dia, 11, 13, 10));
     }
 
     /**
-     *Esta parte se crean los metodos para hacer las Api Stream para realizar las busquedas dentro de la base de datos.
+     * Esta parte se crean los metodos para hacer las Api Stream para realizar las busquedas dentro de la base de datos.
+     * Todos los informes se sirven del mismo resumen, calculado en un unico recorrido de los datos.
+     * Los grupos ordenados que imprimen se guardan en la cache de resultados con la version de los datos.
+     * Cada consulta registra su latencia en {@link AemetMetrics} con su propio nombre: "analitica.resumen",
+     * "analitica.porDia", "analitica.porProvinciaYDia", "analitica.provincia", "analitica.distribuciones",
+     * "analitica.ranking", "analitica.totales" y "analitica.totalesEstacion".
      */
 
     /**
-     * Calcula y almacena las localidades con la temperatura maxima y minima por dia.
+     * Obtiene el resumen con los grupos por provincia y dia, por dia y por localidad, de la version vigente.
+     * Se calcula la primera vez que se pide y se reutiliza en el resto de informes de la misma version.
+     *
+     * @return El resumen de los datos cargados.
      */
-    private void MaximaYMinimaTemperaturaporDia() {
-        System.out.println("Maximas y minimas temperaturas en cada uno de los dias");
+    public ResumenAemet getResumen() {
+        return metricas.medir("analitica.resumen", () -> actual.get().getResumen());
+    }
+
+    /**
+     * Obtiene los grupos por dia, ordenados por dia, de la version vigente.
+     *
+     * @return Un mapa ordenado de solo lectura de dia a grupo.
+     */
+    public Map<LocalDate, GrupoAemet> getPorDia() {
+        return metricas.medir("analitica.porDia", () -> {
+            DatosAemet version = actual.get();
+            return cache.obtener("porDia", version.getVersion(),
+                    () -> Collections.unmodifiableMap(version.getResumen().porDiaOrdenado()));
+        });
+    }
+
+    /**
+     * Obtiene los grupos por provincia y dia, ordenados por provincia y dia, de la version vigente.
+     *
+     * @return Un mapa ordenado de solo lectura de provincia a un mapa ordenado de dia a grupo.
+     */
+    public Map<String, Map<LocalDate, GrupoAemet>> getPorProvinciaYDia() {
+        return metricas.medir("analitica.porProvinciaYDia", () -> {
+            DatosAemet version = actual.get();
+            return cache.obtener("porProvinciaYDia", version.getVersion(), () -> {
+                Map<String, Map<LocalDate, GrupoAemet>> ordenado = version.getResumen().porProvinciaYDiaOrdenado();
+                ordenado.replaceAll((provincia, grupos) -> Collections.unmodifiableMap(grupos));
+                return Collections.unmodifiableMap(ordenado);
+            });
+        });
+    }
 
-        Predicate<Aemet> temperaturaValida = aemet -> true; // Todos los valores de double son válidos
-
-        Map<String, Double[]> result = new HashMap<>();
-
-        lista.stream()
-                .filter(temperaturaValida)
-                .forEach(aemet -> {
-                    String dia = aemet.getDia();
-
-                    if (!result.containsKey(dia)) {
-                        Double[] temperatures = new Double[2];
-                        temperatures[0] = aemet.getTemperaturaMax();
-                        temperatures[1] = aemet.getTemperaturaMin();
-                        result.put(dia, temperatures);
-                    } else {
-                        Double[] existingTemperatures = result.get(dia);
-                        if (aemet.getTemperaturaMax() > existingTemperatures[0]) {
-                            existingTemperatures[0] = aemet.getTemperaturaMax();
-                        }
-                        if (aemet.getTemperaturaMin() < existingTemperatures[1]) {
-                            existingTemperatures[1] = aemet.getTemperaturaMin();
-                        }
-                    }
-                });
-
-        result.forEach((dia, temperatures) -> {
-            double maxTemp = temperatures[0];
-            double minTemp = temperatures[1];
-            String localidad = lista.stream()
-                    .filter(aemet -> aemet.getDia().equals(dia) && aemet.getTemperaturaMax() == maxTemp && aemet.getTemperaturaMin() == minTemp)
-                    .findFirst()
-                    .map(Aemet::getLocalidad)
-                    .orElse("");
-
-            System.out.println("Dia: " + dia + ", Temperatura Maxima: " + maxTemp + ", Temperatura Minima: " + minTemp + ", Localidad: " + localidad);
+    /**
+     * Obtiene los grupos por dia de una provincia en la version vigente.
+     *
+     * @param provincia El nombre de la provincia.
+     * @return Un mapa ordenado de solo lectura de dia a grupo, vacio si la provincia es null o no existe.
+     */
+    public Map<LocalDate, GrupoAemet> getInformeProvincia(String provincia) {
+        return metricas.medir("analitica.provincia", () -> {
+            DatosAemet version = actual.get();
+            return cache.obtener("provincia", version.getVersion(), () -> informeProvincia(version, provincia), provincia);
         });
+    }
 
-        System.out.println(result);
+    /**
+     * Obtiene los grupos por provincia y dia de la version vigente con sus distribuciones: la de las temperaturas
+     * maximas y minimas, la de la precipitacion y el numero estimado de localidades distintas con lluvia.
+     * Las distribuciones no forman parte del resumen; se calculan la primera vez que se piden, recorriendo el
+     * indice por provincia y dia, y se guardan en la cache con la version de los datos.
+     *
+     * @return Un mapa ordenado de solo lectura de provincia a un mapa ordenado de dia a grupo con distribuciones.
+     */
+    public Map<String, Map<LocalDate, GrupoAemet>> getDistribucionesPorProvinciaYDia() {
+        return metricas.medir("analitica.distribuciones", () -> {
+            DatosAemet version = actual.get();
+            return cache.obtener("distribuciones", version.getVersion(), () -> distribuciones(version));
+        });
     }
 
+    /**
+     * Obtiene un ranking de mediciones de la version vigente, por ejemplo las 10 temperaturas maximas mas altas
+     * de cada provincia en una semana.
+     *
+     * @param consulta La consulta de ranking.
+     * @return Los rankings de cada grupo, de solo lectura y ordenados por provincia y dia.
+     * @throws IllegalArgumentException Si la consulta conserva menos de una medicion por grupo.
+     */
+    public List<GrupoRanking> ranking(ConsultaRanking consulta) {
+        return metricas.medir("analitica.ranking", () -> {
+            DatosAemet version = actual.get();
+            return cache.obtener("ranking", version.getVersion(), () -> AemetRanking.calcular(version, consulta), consulta);
+        });
+    }
 
     /**
-     * Calcula y almacena la temperatura maxima por provincia y dia.
+     * Calcula los totales y las medias de todas las mediciones entre dos dias, sin recorrer las filas.
+     *
+     * @param desde El primer dia, incluido; {@link LocalDate#MIN} deja el rango abierto por ese lado.
+     * @param hasta El ultimo dia, incluido; {@link LocalDate#MAX} deja el rango abierto por ese lado.
+     * @return Los totales del rango de la version vigente.
+     */
+    public TotalesRango totales(LocalDate desde, LocalDate hasta) {
+        return metricas.medir("analitica.totales",
+                () -> actual.get().getIndiceDias().totales(AemetColumnStore.diaEpoch(desde), AemetColumnStore.diaEpoch(hasta)));
+    }
+
+    /**
+     * Calcula los totales y las medias de las mediciones de una estacion entre dos dias, sin recorrer las filas;
+     * por ejemplo, la precipitacion total de una localidad en un mes.
+     *
+     * @param localidad El nombre de la localidad.
+     * @param provincia El nombre de la provincia.
+     * @param desde     El primer dia, incluido.
+     * @param hasta     El ultimo dia, incluido.
+     * @return Los totales del rango de la version vigente, vacios si la localidad o la provincia son null o la estacion no existe.
+     */
+    public TotalesRango totalesEstacion(String localidad, String provincia, LocalDate desde, LocalDate hasta) {
+        return metricas.medir("analitica.totalesEstacion", () -> {
+            DatosAemet version = actual.get();
+            AemetColumnStore datos = version.getDatos();
+            int codigoLocalidad = datos.getLocalidades().buscar(localidad);
+            int codigoProvincia = datos.getProvincias().buscar(provincia);
+            if (codigoLocalidad < 0 || codigoProvincia < 0) {
+                return TotalesRango.VACIO;
+            }
+            IndiceDias indice = version.getIndiceDias();
+            return indice.totalesEstacion(codigoLocalidad, codigoProvincia, AemetColumnStore.diaEpoch(desde), AemetColumnStore.diaEpoch(hasta));
+        });
+    }
+
+    /**
+     * Calcula los grupos por dia de una provincia recorriendo solo sus filas, localizadas mediante el indice
+     * por provincia y dia.
+     *
+     * @param version   La version de los datos.
+     * @param provincia El nombre de la provincia.
+     * @return Un mapa ordenado de solo lectura de dia a grupo, vacio si la provincia es null o no existe.
      */
-    private void MaximaTemperaturaProvinciasydia() {
-        Map<String, Map<String, Double>> maxTemperaturaPorProvinciaYDia = new HashMap<>();
+    static Map<LocalDate, GrupoAemet> informeProvincia(DatosAemet version, String provincia) {
+        int codigo = version.getDatos().getProvincias().buscar(provincia);
+        if (codigo < 0) {
+            return Collections.emptyMap();
+        }
+        return gruposProvincia(version, codigo, GrupoAemet::new);
+    }
 
-        lista.stream()
-                .filter(aemet -> aemet.getTemperaturaMax() >= 0) // Verifica que la temperatura máxima sea válida (no negativa)
-                .forEach(aemet -> {
-                    String provincia = aemet.getProvincia();
-                    String dia = aemet.getDia();
-                    double temperaturaMax = aemet.getTemperaturaMax();
+    /**
+     * Calcula los grupos con distribuciones de todas las provincias y dias, provincia a provincia con el indice
+     * por provincia y dia.
+     *
+     * @param version La version de los datos.
+     * @return Un mapa ordenado de solo lectura de provincia a un mapa ordenado de dia a grupo con distribuciones.
+     */
+    static Map<String, Map<LocalDate, GrupoAemet>> distribuciones(DatosAemet version) {
+        StringDictionary provincias = version.getDatos().getProvincias();
+        Map<String, Map<LocalDate, GrupoAemet>> resultado = new TreeMap<>();
+        for (int codigo = 0; codigo < provincias.tamano(); codigo++) {
+            Map<LocalDate, GrupoAemet> grupos = gruposProvincia(version, codigo, GrupoAemet::conDistribuciones);
+            if (!grupos.isEmpty()) {
+                resultado.put(provincias.decodificar(codigo), grupos);
+            }
+        }
+        return Collections.unmodifiableMap(resultado);
+    }
 
-                    if (!maxTemperaturaPorProvinciaYDia.containsKey(provincia)) {
-                        maxTemperaturaPorProvinciaYDia.put(provincia, new HashMap<>());
-                    }
+    /**
+     * Calcula los grupos por dia de una provincia recorriendo solo sus filas del indice por provincia y dia.
+     */
+    private static Map<LocalDate, GrupoAemet> gruposProvincia(DatosAemet version, int codigo, Supplier<GrupoAemet> nuevoGrupo) {
+        AemetColumnStore datos = version.getDatos();
+        IndiceProvincias indice = version.getIndice();
+        Map<LocalDate, GrupoAemet> grupos = new TreeMap<>();
+        for (int tramo = indice.primerTramo(codigo); tramo < indice.finTramos(codigo); tramo++) {
+            GrupoAemet grupo = nuevoGrupo.get();
+            for (int posicion = indice.inicio(tramo); posicion < indice.fin(tramo); posicion++) {
+                grupo.anadir(datos, indice.fila(posicion));
+            }
+            grupos.put(LocalDate.ofEpochDay(indice.dia(tramo)), grupo);
+        }
+        return Collections.unmodifiableMap(grupos);
+    }
 
-                    Map<String, Double> provinciaMap = maxTemperaturaPorProvinciaYDia.get(provincia);
-                    if (!provinciaMap.containsKey(dia) || temperaturaMax > provinciaMap.get(dia)) {
-                        provinciaMap.put(dia, temperaturaMax); // Actualiza la temperatura máxima si es mayor
-                    }
-                });
+    /**
+     * Calcula y almacena las localidades con la temperatura maxima y minima por dia.
+     */
+    public void MaximaYMinimaTemperaturaporDia() {
+        System.out.println("Maximas y minimas temperaturas en cada uno de los dias");
+        ResumenAemet resumen = getResumen();
+        getPorDia().forEach((dia, grupo) -> {
+            Acumulador max = grupo.getTemperaturaMax();
+            Acumulador min = grupo.getTemperaturaMin();
+            System.out.println("Dia: " + dia
+                    + ", Temperatura Maxima: " + max.getMax() + ", Localidad: " + resumen.localidad(max.getLocalidadMax())
+                    + ", Temperatura Minima: " + min.getMin() + ", Localidad: " + resumen.localidad(min.getLocalidadMin()));
+        });
+    }
 
+    /**
+     * Calcula y almacena la temperatura maxima por provincia y dia.
+     */
+    public void MaximaTemperaturaProvinciasydia() {
         System.out.println("Resultados de temperaturas maximas por provincia y dia:");
-        maxTemperaturaPorProvinciaYDia.forEach((provincia, diaTempMap) -> {
+        getPorProvinciaYDia().forEach((provincia, grupos) -> {
             System.out.println("Provincia: " + provincia);
-            diaTempMap.forEach((dia, temperaturaMax) -> {
-                System.out.println("Día: " + dia + ", Temperatura Máxima: " + temperaturaMax);
+            grupos.forEach((dia, grupo) -> {
+                System.out.println("Dia: " + dia + ", Temperatura Maxima: " + grupo.getTemperaturaMax().getMax());
             });
         });
     }
 
-
-
     /**
      * Calcula y almacena la temperatura minima por provincia y dia.
      */
-    private void MinimaTemperaturaProvinciasydia() {
-        Map<String, Map<String, Double>> minTemperaturaPorProvinciaYDia = new HashMap<>();
-        lista.stream()
-                .filter(aemet -> aemet.getTemperaturaMin() >= 0)
-                .forEach(aemet -> {
-                    String provincia = aemet.getProvincia();
-                    String dia = aemet.getDia();
-                    double temperaturaMin = aemet.getTemperaturaMin();
-
-                    if (!minTemperaturaPorProvinciaYDia.containsKey(provincia)) {
-                        minTemperaturaPorProvinciaYDia.put(provincia, new HashMap<>());
-                    }
-
-                    Map<String, Double> provinciaMap = minTemperaturaPorProvinciaYDia.get(provincia);
-                    if (!provinciaMap.containsKey(dia) || temperaturaMin > provinciaMap.get(dia)) {
-                        provinciaMap.put(dia, temperaturaMin);
-                    }
-                });
-
+    public void MinimaTemperaturaProvinciasydia() {
         System.out.println("Resultados de temperaturas minimas por provincia y dia:");
-        minTemperaturaPorProvinciaYDia.forEach((provincia, diaTempMap) -> {
+        getPorProvinciaYDia().forEach((provincia, grupos) -> {
             System.out.println("Provincia: " + provincia);
-            diaTempMap.forEach((dia, temperaturaMin) -> {
-                System.out.println("Dia: " + dia + ", Temperatura Minima: " + temperaturaMin);
+            grupos.forEach((dia, grupo) -> {
+                System.out.println("Dia: " + dia + ", Temperatura Minima: " + grupo.getTemperaturaMin().getMin());
             });
         });
-
     }
 
     /**
      * Calcula y almacena la media de la temperatura por provincia y dia.
+     * La temperatura de cada medicion es la media de su maxima y su minima.
      */
-    private void MediaTemperaturaProvinciasyDia() {
-        Map<String, Map<String, Double>> mediatemperatura = new HashMap<>();
-
-        lista.stream()
-                .filter(aemet -> aemet.getTemperaturaMax() >= 0 && aemet.getTemperaturaMin() >= 0) // Verifica ambas temperaturas válidas
-                .forEach(aemet -> {
-                    String provincia = aemet.getProvincia();
-                    String dia = aemet.getDia();
-                    double temperaturaMax = aemet.getTemperaturaMax();
-                    double temperaturaMin = aemet.getTemperaturaMin();
-
-                    if (!mediatemperatura.containsKey(provincia)) {
-                        mediatemperatura.put(provincia, new HashMap<>());
-                    }
-
-                    Map<String, Double> provinciaMap = mediatemperatura.get(provincia);
-                    if (!provinciaMap.containsKey(dia)) {
-                        provinciaMap.put(dia, (temperaturaMax + temperaturaMin) / 2); // Calcula la media
-                    } else {
-                        double mediaActual = provinciaMap.get(dia);
-                        provinciaMap.put(dia, (mediaActual + (temperaturaMax + temperaturaMin) / 2) / 2); // Actualiza la media
-                    }
-                });
-
-        mediatemperatura.forEach((provincia, diaTempMap) -> {
+    public void MediaTemperaturaProvinciasyDia() {
+        getPorProvinciaYDia().forEach((provincia, grupos) -> {
             System.out.println("Provincia: " + provincia);
-            diaTempMap.forEach((dia, temperaturaMedia) -> {
-                System.out.println("Dia: " + dia + ", Temperatura Media: " + temperaturaMedia);
+            grupos.forEach((dia, grupo) -> {
+                System.out.println("Dia: " + dia + ", Temperatura Media: " + grupo.getTemperaturaMedia().getMedia());
             });
         });
     }
 
-
-
     /**
-     * Calcula y almacena la precipitacion maxima por dia y localidad.
+     * Calcula y almacena la precipitacion maxima por dia y la localidad donde se dio.
      */
-    private void PrecipitacionMaximaDiasLocalidad() {
-        Map<String, Map<String, Double>> maxPrecipitacionPorDiaYLocalidad = new HashMap<>();
-
-        lista.stream()
-                .filter(aemet -> aemet.getPrecipitacion() >=0)
-                .forEach(aemet -> {
-                    String dia = aemet.getDia();
-                    String localidad = aemet.getLocalidad();
-                    double precipitacion = aemet.getPrecipitacion();
-
-                    if (!maxPrecipitacionPorDiaYLocalidad.containsKey(dia)) {
-                        maxPrecipitacionPorDiaYLocalidad.put(dia, new HashMap<>());
-                    }
-
-                    Map<String, Double> localidadMap = maxPrecipitacionPorDiaYLocalidad.get(dia);
-                    if (!localidadMap.containsKey(localidad) || precipitacion > localidadMap.get(localidad)) {
-                        localidadMap.put(localidad, precipitacion);
-                    }
-                });
-        maxPrecipitacionPorDiaYLocalidad.forEach((dia, localidadPrecipitacionMap) -> {
-            System.out.println("Dia: " + dia);
-            localidadPrecipitacionMap.forEach((localidad, maxPrecipitacion) -> {
-                System.out.println("Localidad: " + localidad + ", Precipitacion Maxima: " + maxPrecipitacion);
-            });
+    public void PrecipitacionMaximaDiasLocalidad() {
+        ResumenAemet resumen = getResumen();
+        getPorDia().forEach((dia, grupo) -> {
+            Acumulador precipitacion = grupo.getPrecipitacion();
+            System.out.println("Dia: " + dia + ", Localidad: " + resumen.localidad(precipitacion.getLocalidadMax())
+                    + ", Precipitacion Maxima: " + precipitacion.getMax());
         });
     }
 
-
     /**
      * Calcula y almacena la precipitacion media por provincia y dia.
      */
-    private void PrecipitacionMediaProvinciasyDias() {
-        Map<String, Map<String, Double>> mediaPrecipitacion = new HashMap<>();
-        lista.stream()
-                .filter(aemet -> aemet.getPrecipitacion() >=0)
-                .forEach(aemet -> {
-                    String provincia = aemet.getProvincia();
-                    String dia = aemet.getDia();
-                    double precipitacion = aemet.getPrecipitacion();
-
-                    if (!mediaPrecipitacion.containsKey(provincia)) {
-                        mediaPrecipitacion.put(provincia, new HashMap<>());
-                    }
-
-                    Map<String, Double> provinciaMap = mediaPrecipitacion.get(provincia);
-                    if (!provinciaMap.containsKey(dia)) {
-                        provinciaMap.put(dia, precipitacion);
-                    } else {
-                        double precipitacionMedia = provinciaMap.get(dia);
-                        int count = provinciaMap.size() + 1;
-                        double nuevaMedia = (precipitacionMedia + precipitacion) / count;
-                        provinciaMap.put(dia, nuevaMedia);
-                    }
-                });
-
-        mediaPrecipitacion.forEach((provincia, diaPrecipitacionMap) -> {
+    public void PrecipitacionMediaProvinciasyDias() {
+        getPorProvinciaYDia().forEach((provincia, grupos) -> {
             System.out.println("Provincia: " + provincia);
-            diaPrecipitacionMap.forEach((dia, precipitacionMedia) -> {
-                System.out.println("Dia: " + dia + ", Precipitacion Media: " + precipitacionMedia);
+            grupos.forEach((dia, grupo) -> {
+                System.out.println("Dia: " + dia + ", Precipitacion Media: " + grupo.getPrecipitacion().getMedia());
             });
         });
     }
 
-
-
     /**
      * Calcula y almacena las localidades donde ha llovido por provincia y dia.
      */
-    private void LugaresLlovidoProvinciasYDia() {
-        Map<String, Map<String, List<String>>> lugaresLluviosos = new HashMap<>();
-
-        lista.stream()
-                .filter(aemet -> aemet.getPrecipitacion() >= 0)
-                .forEach(aemet -> {
-                    String provincia = aemet.getProvincia();
-                    String dia = aemet.getDia();
-                    String localidad = aemet.getLocalidad();
-
-                    if (!lugaresLluviosos.containsKey(provincia)) {
-                        lugaresLluviosos.put(provincia, new HashMap<>());
-                    }
-
-                    Map<String, List<String>> provinciaMap = lugaresLluviosos.get(provincia);
-                    if (!provinciaMap.containsKey(dia)) {
-                        provinciaMap.put(dia, new ArrayList<>());
-                    }
-                    provinciaMap.get(dia).add(localidad);
-                });
-        lugaresLluviososPorProvinciaYDia.forEach((provincia, diaLocalidadesMap) -> {
+    public void LugaresLlovidoProvinciasYDia() {
+        ResumenAemet resumen = getResumen();
+        getPorProvinciaYDia().forEach((provincia, grupos) -> {
             System.out.println("Provincia: " + provincia);
-            diaLocalidadesMap.forEach((dia, localidades) -> {
+            grupos.forEach((dia, grupo) -> {
+                StringJoiner localidades = new StringJoiner(", ");
+                grupo.getLocalidadesConLluvia().stream().forEach(codigo -> localidades.add(resumen.localidad(codigo)));
                 System.out.println("Dia: " + dia);
-                System.out.println("Localidades con precipitacion: " + String.join(", ", localidades));
+                System.out.println("Localidades con precipitacion: " + localidades);
             });
         });
     }
 
+    /**
+     * Muestra la distribucion de las mediciones por provincia y dia: la mediana y los percentiles 5 y 95 de las
+     * temperaturas maximas y minimas y de la precipitacion, y el numero estimado de localidades distintas con lluvia.
+     * Los valores salen de los resumenes aproximados de {@link #getDistribucionesPorProvinciaYDia()}, que ocupan
+     * lo mismo por grupo sea cual sea el numero de mediciones.
+     */
+    public void DistribucionProvinciasYDia() {
+        getDistribucionesPorProvinciaYDia().forEach((provincia, grupos) -> {
+            System.out.println("Provincia: " + provincia);
+            grupos.forEach((dia, grupo) -> {
+                System.out.println("Dia: " + dia);
+                System.out.println("TemperaturaMaxima " + percentiles(grupo.getDistribucionTemperaturaMax()));
+                System.out.println("TemperaturaMinima " + percentiles(grupo.getDistribucionTemperaturaMin()));
+                System.out.println("Precipitacion " + percentiles(grupo.getDistribucionPrecipitacion()));
+                System.out.println("Localidades con precipitacion (estimadas): " + grupo.getLocalidadesConLluviaDistintas().estimar());
+            });
+        });
+    }
+
+    private static String percentiles(KllSketch distribucion) {
+        double[] cuantiles = distribucion.cuantiles(0.05, 0.5, 0.95);
+        return "P5: " + cuantiles[0] + ", Mediana: " + cuantiles[1] + ", P95: " + cuantiles[2];
+    }
 
     /**
      * Calcula y almacena la localidad con mayor precipitacion acumulada.
      */
-    private void LugaresLLovidoMas() {
-        Map<String, Double> lugarPrecipitacionPromedio = new HashMap<>();
-
-        lista.stream()
-                .filter(aemet -> aemet.getPrecipitacion() >=0) //
-                .forEach(aemet -> {
-                    String localidad = aemet.getLocalidad();
-                    double precipitacion = aemet.getPrecipitacion();
-
-                    if (!lugarPrecipitacionPromedio.containsKey(localidad)) {
-                        lugarPrecipitacionPromedio.put(localidad, precipitacion);
-                    } else {
-                        double cola = lugarPrecipitacionPromedio.get(localidad);
-                        int count = lugarPrecipitacionPromedio.size() + 1;
-                        double nuevoPromedio = (cola + precipitacion) / count;
-                        lugarPrecipitacionPromedio.put(localidad, nuevoPromedio);
-                    }
-                });
-
-        String localidadMasLluviosa = null;
-        double precipitacionMasAlta = Double.MIN_VALUE;
-
-        for (String localidad : lugarPrecipitacionPromedio.keySet()) {
-            double precipitacionPromedio = lugarPrecipitacionPromedio.get(localidad);
-            if (localidadMasLluviosa == null || precipitacionPromedio > precipitacionMasAlta) {
-                localidadMasLluviosa = localidad;
-                precipitacionMasAlta = precipitacionPromedio;
+    public void LugaresLLovidoMas() {
+        ResumenAemet resumen = getResumen();
+        int localidadMasLluviosa = -1;
+        double precipitacionMasAlta = Double.NEGATIVE_INFINITY;
+
+        for (Map.Entry<Integer, GrupoAemet> entrada : resumen.getPorLocalidad().entrySet()) {
+            double precipitacionAcumulada = entrada.getValue().getPrecipitacion().getSuma();
+            if (precipitacionAcumulada > precipitacionMasAlta) {
+                localidadMasLluviosa = entrada.getKey();
+                precipitacionMasAlta = precipitacionAcumulada;
             }
         }
 
-        if (localidadMasLluviosa != null) {
-            System.out.println("Localidad mas lluviosa: " + localidadMasLluviosa);
-            System.out.println("Precipitacion promedio: " + precipitacionMasAlta);
+        if (localidadMasLluviosa >= 0) {
+            System.out.println("Localidad mas lluviosa: " + resumen.localidad(localidadMasLluviosa));
+            System.out.println("Precipitacion acumulada: " + precipitacionMasAlta);
         }
-
     }
 
-
     /**
-     * Realiza un analisis de datos especifico para la provincia de Madrid y almacena los resultados.
-     * Calcula estadisticas como la temperatura maxima, temperatura minima, temperatura media,
-     * precipitacion maxima, precipitacion media, y las localidades correspondientes a dichos valores
-     * por dia y localidad dentro de la provincia de Madrid.
-     * @return Un mapa que contiene estadisticas por dia y localidad para la provincia de Madrid, como en el ejemplo de
-     * clase que se dio en la practica.
+     * Realiza un analisis de datos de una provincia y muestra los resultados por dia:
+     * temperatura maxima, temperatura minima, temperaturas medias, precipitacion maxima y media,
+     * y las localidades correspondientes a dichos valores.
+     * Los grupos salen de {@link #getInformeProvincia(String)}.
+     *
+     * @param provincia El nombre de la provincia.
+     * @return Un mapa ordenado de solo lectura por dia con el grupo de mediciones de la provincia en cada dia,
+     * vacio si la provincia es null o no existe.
      */
-    private void ProvinciaMadrid() {
-        Map<String, Map<String, Double>> datosMadridPorDia = new HashMap<>();
-
-        lista.stream()
-                .filter(aemet -> "Madrid".equals(aemet.getProvincia()))
-                .forEach(aemet -> {
-                    String dia = aemet.getDia();
-                    String localidad = aemet.getLocalidad();
-
-                    if (!datosMadridPorDia.containsKey(dia)) {
-                        datosMadridPorDia.put(dia, new HashMap<>());
-                    }
-
-                    Map<String, Double> datosPorDia = datosMadridPorDia.get(dia);
-
-                    // Temperatura Maxima
-                    double temperaturaMaxima = aemet.getTemperaturaMax();
-                    double maxTemperaturaMaxima = datosPorDia.getOrDefault("TemperaturaMaxima", Double.MIN_VALUE);
-                    if (temperaturaMaxima >= maxTemperaturaMaxima) {
-                        datosPorDia.put("TemperaturaMaxima", temperaturaMaxima);
-                        datosPorDia.put("LocalidadTemperaturaMaxima", localidad);
-                    }
-
-                    // Temperatura Minima
-                    double temperaturaMinima = aemet.getTemperaturaMin();
-                    double minTemperaturaMinima = datosPorDia.getOrDefault("TemperaturaMinima", Double.MAX_VALUE);
-                    if (temperaturaMinima <= minTemperaturaMinima) {
-                        datosPorDia.put("TemperaturaMinima", temperaturaMinima);
-                        datosPorDia.put("LocalidadTemperaturaMinima", localidad);
-                    }
-
-                    // Temperatura Media Maxima
-                    double temperaturaMediaMaxima = datosPorDia.getOrDefault("TemperaturaMediaMaxima", 0.0);
-                    datosPorDia.put("TemperaturaMediaMaxima", (temperaturaMediaMaxima + temperaturaMaxima) / 2.0);
-
-                    // Temperatura Media Minima
-                    double temperaturaMediaMinima = datosPorDia.getOrDefault("TemperaturaMediaMinima", 0.0);
-                    datosPorDia.put("TemperaturaMediaMinima", (temperaturaMediaMinima + temperaturaMinima) / 2.0);
-
-                    // Precipitacion Maxima
-                    double precipitacion = aemet.getPrecipitacion();
-                    double maxPrecipitacion = datosPorDia.getOrDefault("PrecipitacionMaxima", Double.MIN_VALUE);
-                    if (precipitacion >= maxPrecipitacion) {
-                        datosPorDia.put("PrecipitacionMaxima", precipitacion);
-                        datosPorDia.put("LocalidadPrecipitacionMaxima", localidad);
-                    }
-
-                    // Precipitacion Media
-                    double precipitacionMedia = datosPorDia.getOrDefault("PrecipitacionMedia", 0.0);
-                    datosPorDia.put("PrecipitacionMedia", (precipitacionMedia + precipitacion) / 2.0);
-                });
-
-        // Mostrar resultados
-        datosMadridPorDia.forEach((dia, datosPorDia) -> {
+    public Map<LocalDate, GrupoAemet> ProvinciaReport(String provincia) {
+        Map<LocalDate, GrupoAemet> grupos = getInformeProvincia(provincia);
+        // Los codigos de localidad se conservan de una version a otra, asi que da igual la version que los decodifique.
+        StringDictionary localidades = getDatos().getLocalidades();
+        grupos.forEach((dia, grupo) -> {
+            Acumulador max = grupo.getTemperaturaMax();
+            Acumulador min = grupo.getTemperaturaMin();
+            Acumulador precipitacion = grupo.getPrecipitacion();
             System.out.println("Dia: " + dia);
-            datosPorDia.forEach((dato, valor) -> {
-                System.out.println(dato + ": " + valor);
-            });
+            System.out.println("TemperaturaMaxima: " + max.getMax() + ", Localidad: " + localidades.decodificar(max.getLocalidadMax()));
+            System.out.println("TemperaturaMinima: " + min.getMin() + ", Localidad: " + localidades.decodificar(min.getLocalidadMin()));
+            System.out.println("TemperaturaMediaMaxima: " + max.getMedia());
+            System.out.println("TemperaturaMediaMinima: " + min.getMedia());
+            System.out.println("PrecipitacionMaxima: " + precipitacion.getMax() + ", Localidad: " + localidades.decodificar(precipitacion.getLocalidadMax()));
+            System.out.println("PrecipitacionMedia: " + precipitacion.getMedia());
         });
+        return grupos;
+    }
+
+    /**
+     * Muestra un ranking de mediciones: para cada grupo, su provincia y su dia si los tiene, y en cada posicion
+     * la localidad, la provincia, el dia y el valor de la medicion.
+     *
+     * @param consulta La consulta de ranking.
+     * @return Los rankings de cada grupo.
+     */
+    public List<GrupoRanking> RankingReport(ConsultaRanking consulta) {
+        List<GrupoRanking> grupos = ranking(consulta);
+        System.out.println("Ranking " + consulta.getCriterio() + ":");
+        for (GrupoRanking grupo : grupos) {
+            if (grupo.getProvincia() != null) {
+                System.out.println("Provincia: " + grupo.getProvincia());
+            }
+            if (grupo.getDia() != null) {
+                System.out.println("Dia: " + grupo.getDia());
+            }
+            for (EntradaRanking entrada : grupo.getEntradas()) {
+                Aemet medicion = entrada.getMedicion();
+                System.out.println(entrada.getPosicion() + ". " + medicion.getLocalidad() + " (" + medicion.getProvincia() + "), "
+                        + medicion.getDia() + ": " + entrada.getValor());
+            }
+        }
+        return grupos;
+    }
+
+    /**
+     * Realiza un analisis de datos especifico para la provincia de Madrid y muestra los resultados.
+     * Es el informe de {@link #ProvinciaReport(String)} aplicado a Madrid.
+     */
+    public void ProvinciaMadrid() {
+        ProvinciaReport("Madrid");
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,77 @@
+package dev.controllers;
+
+import dev.models.Aemet;
+import dev.services.AemetCsvReader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Esta clase compara el rendimiento de la lectura anterior de los CSV (conversion a "_convertido.csv" y OpenCSV)
+ * con la lectura en una sola pasada de {@link AemetCsvReader}.
+ */
+public class ComparativaIngesta {
+    private static final String[] FICHEROS = {"Aemet20171029", "Aemet20171030", "Aemet20171031"};
+
+    /**
+     * Ejecuta ambas formas de lectura varias veces sobre los ficheros de datos y muestra filas/s y MB/s de cada una.
+     *
+     * @param args Opcionalmente, el numero de repeticiones (por defecto 200).
+     * @throws IOException Si se produce un error al leer los ficheros.
+     */
+    public static void main(String[] args) throws IOException {
+        int repeticiones = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        Path directorio = AemetController.directorioDatos();
+
+        long bytes = 0;
+        for (String fichero : FICHEROS) {
+            bytes += Files.size(directorio.resolve(fichero + ".csv"));
+        }
+
+        // Calentamiento para que ambas rutas lleguen compiladas a la medicion.
+        medirConvertido(directorio, Math.max(1, repeticiones / 10));
+        medirStreaming(directorio, Math.max(1, repeticiones / 10));
+
+        long inicio = System.nanoTime();
+        long filasConvertido = medirConvertido(directorio, repeticiones);
+        long tiempoConvertido = System.nanoTime() - inicio;
+
+        inicio = System.nanoTime();
+        long filasStreaming = medirStreaming(directorio, repeticiones);
+        long tiempoStreaming = System.nanoTime() - inicio;
+
+        mostrar("Convertido + OpenCSV", filasConvertido, bytes * repeticiones, tiempoConvertido);
+        mostrar("Streaming una pasada", filasStreaming, bytes * repeticiones, tiempoStreaming);
+        System.out.printf("Aceleracion: %.2fx%n", (double) tiempoConvertido / tiempoStreaming);
+    }
+
+    private static long medirConvertido(Path directorio, int repeticiones) throws IOException {
+        long filas = 0;
+        for (int i = 0; i < repeticiones; i++) {
+            for (String fichero : FICHEROS) {
+                filas += AemetController.leerCSVConvertido(directorio, fichero).size();
+            }
+        }
+        return filas;
+    }
+
+    private static long medirStreaming(Path directorio, int repeticiones) throws IOException {
+        long filas = 0;
+        for (int i = 0; i < repeticiones; i++) {
+            for (String fichero : FICHEROS) {
+                List<Aemet> leidos = new ArrayList<>();
+                filas += AemetCsvReader.leer(directorio.resolve(fichero + ".csv"), AemetController.getDia(fichero), leidos::add);
+            }
+        }
+        return filas;
+    }
+
+    private static void mostrar(String nombre, long filas, long bytes, long nanos) {
+        double segundos = nanos / 1e9;
+        System.out.printf("%-22s filas: %8d  %10.0f filas/s  %7.1f MB/s%n",
+                nombre, filas, filas / segundos, bytes / segundos / (1024 * 1024));
+    }
+}
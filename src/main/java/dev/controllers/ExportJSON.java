@@ -2,26 +2,58 @@ package dev.controllers;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
 import dev.models.Aemet;
 import dev.utils.LocalDateAdapter;
 import dev.utils.LocalTimeAdapter;
 
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Esta clase se encarga de exportar Aemet a formato JSON y almacenarlos en un archivo.
  * Utiliza la biblioteca Gson para serializar los objetos y proporciona una opcion para
  * formatear el JSON de manera legible.
+ * Los objetos se escriben uno a uno en el fichero, sin construir el JSON completo en memoria.
  */
 public class ExportJSON {
+    private static final int TAMANO_BUFFER = 1 << 16;
     private final String APP_PATH = System.getProperty("user.dir");
     private final String DATA_DIR = APP_PATH + File.separator + "data";
     private final String BACKUP_FILE = DATA_DIR + File.separator + "aemet.json";
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(LocalDate.class, new LocalDateAdapter())
+            .registerTypeAdapter(LocalTime.class, new LocalTimeAdapter())
+            .create();
 
+    /**
+     * Formatos de salida de la exportacion.
+     */
+    public enum Formato {
+        /**
+         * Un array JSON con sangria, legible por personas.
+         */
+        LEGIBLE,
+        /**
+         * Un array JSON sin espacios.
+         */
+        COMPACTO,
+        /**
+         * Un objeto JSON por linea (NDJSON), sin array que los envuelva.
+         */
+        NDJSON
+    }
 
     /**
      * Exporta una lista de Aemet a un archivo JSON en el directorio de datos.
@@ -30,17 +62,63 @@ public class ExportJSON {
      * @throws IOException Si ocurre un error al escribir el archivo JSON.
      */
     public void exportar(List<Aemet> aemet) throws IOException {
-         Gson gson = new GsonBuilder()
-                .registerTypeAdapter(LocalDate.class, new LocalDateAdapter())
-                .registerTypeAdapter(LocalTime.class, new LocalTimeAdapter())
-                .setPrettyPrinting()
-                .create();
-        String json = gson.toJson(aemet);
+        exportar(aemet.iterator(), Paths.get(BACKUP_FILE), Formato.LEGIBLE, false);
+    }
 
-        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
-                new FileOutputStream(BACKUP_FILE), StandardCharsets.UTF_8))) {
-            writer.write(json);
+    /**
+     * Exporta un Stream de Aemet, por ejemplo el de {@code AemetRepositoryImpl.streamAll()}, a un archivo JSON.
+     * El Stream no se cierra; debe cerrarlo quien lo creo.
+     *
+     * @param aemet   El Stream de objetos Aemet que se va a exportar.
+     * @param fichero La ruta del archivo de salida.
+     * @param formato El formato de salida.
+     * @param gzip    Indica si el archivo se comprime con gzip.
+     * @throws IOException Si ocurre un error al escribir el archivo JSON.
+     */
+    public void exportar(Stream<Aemet> aemet, Path fichero, Formato formato, boolean gzip) throws IOException {
+        exportar(aemet.iterator(), fichero, formato, gzip);
+    }
+
+    /**
+     * Exporta los objetos Aemet de un iterador a un archivo JSON, escribiendolos segun se recorren.
+     * La memoria usada no depende del numero de objetos exportados. Un iterador vacio produce un array vacio
+     * o, en NDJSON, un fichero vacio.
+     *
+     * @param aemet   El iterador de objetos Aemet que se va a exportar.
+     * @param fichero La ruta del archivo de salida.
+     * @param formato El formato de salida.
+     * @param gzip    Indica si el archivo se comprime con gzip.
+     * @throws IOException Si ocurre un error al escribir el archivo JSON.
+     */
+    public void exportar(Iterator<Aemet> aemet, Path fichero, Formato formato, boolean gzip) throws IOException {
+        try (FileChannel canal = FileChannel.open(fichero,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             OutputStream salida = gzip
+                     ? new GZIPOutputStream(Channels.newOutputStream(canal), TAMANO_BUFFER)
+                     : Channels.newOutputStream(canal);
+             Writer writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), TAMANO_BUFFER)
+        ) {
+            // El JsonWriter no se cierra: su close exige un documento completo y un NDJSON vacio no tiene ninguno.
+            // Basta con vaciarlo al final; el fichero se cierra con el writer.
+            JsonWriter jsonWriter = new JsonWriter(writer);
+            if (formato == Formato.NDJSON) {
+                // Varios valores JSON de primer nivel seguidos solo se admiten en modo permisivo.
+                jsonWriter.setLenient(true);
+                while (aemet.hasNext()) {
+                    gson.toJson(aemet.next(), Aemet.class, jsonWriter);
+                    writer.write('\n');
+                }
+            } else {
+                if (formato == Formato.LEGIBLE) {
+                    jsonWriter.setIndent("  ");
+                }
+                jsonWriter.beginArray();
+                while (aemet.hasNext()) {
+                    gson.toJson(aemet.next(), Aemet.class, jsonWriter);
+                }
+                jsonWriter.endArray();
+            }
+            jsonWriter.flush();
         }
     }
 }
-
@@ -0,0 +1,81 @@
+package dev.models;
+
+import lombok.Getter;
+
+/**
+ * Esta clase acumula cuenta, suma, minimo y maximo de una variable, junto con la localidad donde se dio
+ * el minimo y el maximo. Dos acumuladores se pueden combinar, por lo que se pueden calcular por partes.
+ */
+@Getter
+public class Acumulador {
+    /**
+     * Numero de valores acumulados.
+     */
+    private long cuenta;
+    /**
+     * Suma de los valores acumulados.
+     */
+    private double suma;
+    /**
+     * Valor minimo acumulado.
+     */
+    private double min = Double.POSITIVE_INFINITY;
+    /**
+     * Valor maximo acumulado.
+     */
+    private double max = Double.NEGATIVE_INFINITY;
+    /**
+     * Codigo de la localidad donde se dio el minimo, o -1 si no hay valores.
+     */
+    private int localidadMin = -1;
+    /**
+     * Codigo de la localidad donde se dio el maximo, o -1 si no hay valores.
+     */
+    private int localidadMax = -1;
+
+    /**
+     * Añade un valor al acumulador. En caso de empate se conserva la primera localidad encontrada.
+     *
+     * @param valor     El valor que se desea acumular.
+     * @param localidad El codigo de la localidad donde se registro el valor.
+     */
+    public void anadir(double valor, int localidad) {
+        cuenta++;
+        suma += valor;
+        if (valor < min) {
+            min = valor;
+            localidadMin = localidad;
+        }
+        if (valor > max) {
+            max = valor;
+            localidadMax = localidad;
+        }
+    }
+
+    /**
+     * Combina otro acumulador con este. En caso de empate se conserva la localidad de este acumulador.
+     *
+     * @param otro El acumulador que se desea combinar.
+     */
+    public void combinar(Acumulador otro) {
+        cuenta += otro.cuenta;
+        suma += otro.suma;
+        if (otro.min < min) {
+            min = otro.min;
+            localidadMin = otro.localidadMin;
+        }
+        if (otro.max > max) {
+            max = otro.max;
+            localidadMax = otro.localidadMax;
+        }
+    }
+
+    /**
+     * Calcula la media exacta de los valores acumulados.
+     *
+     * @return La media de los valores, o NaN si no hay valores.
+     */
+    public double getMedia() {
+        return cuenta == 0 ? Double.NaN : suma / cuenta;
+    }
+}
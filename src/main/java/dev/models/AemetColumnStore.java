@@ -0,0 +1,305 @@
+package dev.models;
+
+import dev.utils.StringDictionary;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Esta clase guarda las mediciones de AEMET por columnas en arrays de tipos primitivos.
+ * Las localidades y provincias se guardan como codigos de un diccionario, las horas como minuto del dia
+ * y el dia como dia epoch. Los objetos Aemet solo se construyen cuando se piden.
+ */
+public class AemetColumnStore {
+    private static final int CAPACIDAD_INICIAL = 1024;
+    private static final short SIN_HORA = -1;
+
+    private final StringDictionary localidades;
+    private final StringDictionary provincias;
+
+    private int[] localidad = new int[CAPACIDAD_INICIAL];
+    private int[] provincia = new int[CAPACIDAD_INICIAL];
+    private double[] temperaturaMax = new double[CAPACIDAD_INICIAL];
+    private short[] horaTemperaturaMax = new short[CAPACIDAD_INICIAL];
+    private double[] temperaturaMin = new double[CAPACIDAD_INICIAL];
+    private short[] horaTemperaturaMin = new short[CAPACIDAD_INICIAL];
+    private double[] precipitacion = new double[CAPACIDAD_INICIAL];
+    private int[] dia = new int[CAPACIDAD_INICIAL];
+    private int tamano;
+
+    /**
+     * Crea un almacen vacio.
+     */
+    public AemetColumnStore() {
+        this(new StringDictionary(), new StringDictionary());
+    }
+
+    private AemetColumnStore(StringDictionary localidades, StringDictionary provincias) {
+        this.localidades = localidades;
+        this.provincias = provincias;
+    }
+
+    /**
+     * Crea una copia independiente del almacen, con los mismos codigos de localidad y provincia,
+     * que se puede modificar sin afectar a quien este leyendo el original.
+     *
+     * @return La copia del almacen.
+     */
+    public AemetColumnStore copiar() {
+        AemetColumnStore copia = new AemetColumnStore(localidades.copiar(), provincias.copiar());
+        copia.localidad = Arrays.copyOf(localidad, tamano);
+        copia.provincia = Arrays.copyOf(provincia, tamano);
+        copia.temperaturaMax = Arrays.copyOf(temperaturaMax, tamano);
+        copia.horaTemperaturaMax = Arrays.copyOf(horaTemperaturaMax, tamano);
+        copia.temperaturaMin = Arrays.copyOf(temperaturaMin, tamano);
+        copia.horaTemperaturaMin = Arrays.copyOf(horaTemperaturaMin, tamano);
+        copia.precipitacion = Arrays.copyOf(precipitacion, tamano);
+        copia.dia = Arrays.copyOf(dia, tamano);
+        copia.tamano = tamano;
+        return copia;
+    }
+
+    /**
+     * Añade una medicion al final del almacen.
+     *
+     * @param aemet La medicion que se desea añadir.
+     */
+    public void anadir(Aemet aemet) {
+        asegurarCapacidad(tamano + 1);
+        localidad[tamano] = localidades.codificar(aemet.getLocalidad());
+        provincia[tamano] = provincias.codificar(aemet.getProvincia());
+        temperaturaMax[tamano] = aemet.getTemperaturaMax();
+        horaTemperaturaMax[tamano] = aMinutos(aemet.getHoraTemperaturaMax());
+        temperaturaMin[tamano] = aemet.getTemperaturaMin();
+        horaTemperaturaMin[tamano] = aMinutos(aemet.getHoraTemperaturaMin());
+        precipitacion[tamano] = aemet.getPrecipitacion();
+        dia[tamano] = (int) aemet.getDia().toEpochDay();
+        tamano++;
+    }
+
+    /**
+     * Añade una medicion ya codificada al final del almacen.
+     *
+     * @param localidad          El codigo de la localidad en {@link #getLocalidades()}.
+     * @param provincia          El codigo de la provincia en {@link #getProvincias()}.
+     * @param temperaturaMax     La temperatura maxima.
+     * @param horaTemperaturaMax El minuto del dia de la temperatura maxima, o -1 si no se conoce.
+     * @param temperaturaMin     La temperatura minima.
+     * @param horaTemperaturaMin El minuto del dia de la temperatura minima, o -1 si no se conoce.
+     * @param precipitacion      La precipitacion.
+     * @param dia                El dia epoch.
+     */
+    public void anadir(int localidad, int provincia, double temperaturaMax, int horaTemperaturaMax,
+                       double temperaturaMin, int horaTemperaturaMin, double precipitacion, int dia) {
+        asegurarCapacidad(tamano + 1);
+        this.localidad[tamano] = localidad;
+        this.provincia[tamano] = provincia;
+        this.temperaturaMax[tamano] = temperaturaMax;
+        this.horaTemperaturaMax[tamano] = (short) horaTemperaturaMax;
+        this.temperaturaMin[tamano] = temperaturaMin;
+        this.horaTemperaturaMin[tamano] = (short) horaTemperaturaMin;
+        this.precipitacion[tamano] = precipitacion;
+        this.dia[tamano] = dia;
+        tamano++;
+    }
+
+    /**
+     * Añade al final todas las mediciones de otro almacen, recodificando sus localidades y provincias.
+     *
+     * @param otro El almacen cuyas mediciones se desean añadir.
+     */
+    public void anadirTodos(AemetColumnStore otro) {
+        int[] mapaLocalidades = recodificar(otro.localidades, localidades);
+        int[] mapaProvincias = recodificar(otro.provincias, provincias);
+        asegurarCapacidad(tamano + otro.tamano);
+        for (int i = 0; i < otro.tamano; i++) {
+            localidad[tamano + i] = mapaLocalidades[otro.localidad[i]];
+            provincia[tamano + i] = mapaProvincias[otro.provincia[i]];
+        }
+        System.arraycopy(otro.temperaturaMax, 0, temperaturaMax, tamano, otro.tamano);
+        System.arraycopy(otro.horaTemperaturaMax, 0, horaTemperaturaMax, tamano, otro.tamano);
+        System.arraycopy(otro.temperaturaMin, 0, temperaturaMin, tamano, otro.tamano);
+        System.arraycopy(otro.horaTemperaturaMin, 0, horaTemperaturaMin, tamano, otro.tamano);
+        System.arraycopy(otro.precipitacion, 0, precipitacion, tamano, otro.tamano);
+        System.arraycopy(otro.dia, 0, dia, tamano, otro.tamano);
+        tamano += otro.tamano;
+    }
+
+    /**
+     * Elimina todas las mediciones de un dia, conservando el orden del resto de filas.
+     * Los codigos de los diccionarios no cambian.
+     *
+     * @param dia El dia epoch cuyas mediciones se desean eliminar.
+     * @return El numero de mediciones eliminadas.
+     */
+    public int eliminarDia(int dia) {
+        int destino = 0;
+        for (int fila = 0; fila < tamano; fila++) {
+            if (this.dia[fila] == dia) {
+                continue;
+            }
+            if (destino != fila) {
+                localidad[destino] = localidad[fila];
+                provincia[destino] = provincia[fila];
+                temperaturaMax[destino] = temperaturaMax[fila];
+                horaTemperaturaMax[destino] = horaTemperaturaMax[fila];
+                temperaturaMin[destino] = temperaturaMin[fila];
+                horaTemperaturaMin[destino] = horaTemperaturaMin[fila];
+                precipitacion[destino] = precipitacion[fila];
+                this.dia[destino] = this.dia[fila];
+            }
+            destino++;
+        }
+        int eliminadas = tamano - destino;
+        tamano = destino;
+        return eliminadas;
+    }
+
+    /**
+     * Ajusta la capacidad de las columnas al numero de mediciones guardadas para liberar la memoria sobrante.
+     */
+    public void compactar() {
+        redimensionar(tamano);
+    }
+
+    /**
+     * Obtiene el numero de mediciones guardadas.
+     *
+     * @return El numero de mediciones.
+     */
+    public int tamano() {
+        return tamano;
+    }
+
+    /**
+     * Construye el objeto Aemet de una fila del almacen.
+     *
+     * @param fila El indice de la fila.
+     * @return Un nuevo objeto Aemet con los datos de la fila.
+     */
+    public Aemet fila(int fila) {
+        return Aemet.builder()
+                .localidad(localidades.decodificar(localidad[fila]))
+                .provincia(provincias.decodificar(provincia[fila]))
+                .temperaturaMax(temperaturaMax[fila])
+                .horaTemperaturaMax(aHora(horaTemperaturaMax[fila]))
+                .temperaturaMin(temperaturaMin[fila])
+                .horaTemperaturaMin(aHora(horaTemperaturaMin[fila]))
+                .precipitacion(precipitacion[fila])
+                .dia(LocalDate.ofEpochDay(dia[fila]))
+                .build();
+    }
+
+    /**
+     * Obtiene un Stream que construye los objetos Aemet de cada fila segun se recorren.
+     *
+     * @return Un Stream de objetos Aemet en el orden del almacen.
+     */
+    public Stream<Aemet> filas() {
+        return IntStream.range(0, tamano).mapToObj(this::fila);
+    }
+
+    /**
+     * Construye una lista con los objetos Aemet de todas las filas.
+     *
+     * @return Una lista nueva de objetos Aemet.
+     */
+    public ArrayList<Aemet> aLista() {
+        ArrayList<Aemet> lista = new ArrayList<>(tamano);
+        for (int i = 0; i < tamano; i++) {
+            lista.add(fila(i));
+        }
+        return lista;
+    }
+
+    // Acceso directo a las columnas de una fila, sin construir objetos Aemet.
+
+    public int localidad(int fila) {
+        return localidad[fila];
+    }
+
+    public int provincia(int fila) {
+        return provincia[fila];
+    }
+
+    public double temperaturaMax(int fila) {
+        return temperaturaMax[fila];
+    }
+
+    public int horaTemperaturaMax(int fila) {
+        return horaTemperaturaMax[fila];
+    }
+
+    public double temperaturaMin(int fila) {
+        return temperaturaMin[fila];
+    }
+
+    public int horaTemperaturaMin(int fila) {
+        return horaTemperaturaMin[fila];
+    }
+
+    public double precipitacion(int fila) {
+        return precipitacion[fila];
+    }
+
+    public int dia(int fila) {
+        return dia[fila];
+    }
+
+    public StringDictionary getLocalidades() {
+        return localidades;
+    }
+
+    public StringDictionary getProvincias() {
+        return provincias;
+    }
+
+    /**
+     * Convierte un dia en el dia epoch de tipo int con el que se guardan y se consultan los dias.
+     * Los dias que no caben en un int, como {@link LocalDate#MAX} usado como extremo abierto de un rango,
+     * se acotan al limite mas cercano en lugar de desbordarse.
+     *
+     * @param dia El dia.
+     * @return El dia epoch, acotado entre Integer.MIN_VALUE e Integer.MAX_VALUE.
+     */
+    public static int diaEpoch(LocalDate dia) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, dia.toEpochDay()));
+    }
+
+    private static int[] recodificar(StringDictionary origen, StringDictionary destino) {
+        int[] mapa = new int[origen.tamano()];
+        for (int i = 0; i < mapa.length; i++) {
+            mapa[i] = destino.codificar(origen.decodificar(i));
+        }
+        return mapa;
+    }
+
+    private static short aMinutos(LocalTime hora) {
+        return hora == null ? SIN_HORA : (short) (hora.getHour() * 60 + hora.getMinute());
+    }
+
+    private static LocalTime aHora(short minutos) {
+        return minutos == SIN_HORA ? null : LocalTime.of(minutos / 60, minutos % 60);
+    }
+
+    private void asegurarCapacidad(int capacidad) {
+        if (capacidad > dia.length) {
+            redimensionar(Math.max(capacidad, dia.length + (dia.length >> 1)));
+        }
+    }
+
+    private void redimensionar(int capacidad) {
+        localidad = Arrays.copyOf(localidad, capacidad);
+        provincia = Arrays.copyOf(provincia, capacidad);
+        temperaturaMax = Arrays.copyOf(temperaturaMax, capacidad);
+        horaTemperaturaMax = Arrays.copyOf(horaTemperaturaMax, capacidad);
+        temperaturaMin = Arrays.copyOf(temperaturaMin, capacidad);
+        horaTemperaturaMin = Arrays.copyOf(horaTemperaturaMin, capacidad);
+        precipitacion = Arrays.copyOf(precipitacion, capacidad);
+        dia = Arrays.copyOf(dia, capacidad);
+    }
+}
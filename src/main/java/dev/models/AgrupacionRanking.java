@@ -0,0 +1,23 @@
+package dev.models;
+
+/**
+ * Formas de agrupar las mediciones de un ranking: se calcula un ranking independiente para cada grupo.
+ */
+public enum AgrupacionRanking {
+    /**
+     * Un unico ranking con todas las mediciones.
+     */
+    NACIONAL,
+    /**
+     * Un ranking por provincia.
+     */
+    PROVINCIA,
+    /**
+     * Un ranking por dia.
+     */
+    DIA,
+    /**
+     * Un ranking por provincia y dia.
+     */
+    PROVINCIA_DIA
+}
@@ -0,0 +1,41 @@
+package dev.models;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDate;
+
+/**
+ * Esta clase describe una consulta de ranking: el criterio, como se agrupan las mediciones, cuantas se conservan
+ * por grupo y, opcionalmente, la provincia y el rango de dias que se tienen en cuenta.
+ */
+@Value
+@Builder
+public class ConsultaRanking {
+    /**
+     * El criterio de ordenacion.
+     */
+    CriterioRanking criterio;
+    /**
+     * Como se agrupan las mediciones; por defecto, un unico ranking nacional.
+     */
+    @Builder.Default
+    AgrupacionRanking agrupacion = AgrupacionRanking.NACIONAL;
+    /**
+     * El numero de mediciones que se conservan en cada grupo.
+     */
+    @Builder.Default
+    int k = 10;
+    /**
+     * La unica provincia que se tiene en cuenta, o null para todas.
+     */
+    String provincia;
+    /**
+     * El primer dia que se tiene en cuenta, incluido, o null para empezar por el primero.
+     */
+    LocalDate desde;
+    /**
+     * El ultimo dia que se tiene en cuenta, incluido, o null para llegar hasta el ultimo.
+     */
+    LocalDate hasta;
+}
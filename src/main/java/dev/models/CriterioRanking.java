@@ -0,0 +1,70 @@
+package dev.models;
+
+/**
+ * Criterios por los que se pueden ordenar las mediciones en un ranking.
+ * Cada criterio da una puntuacion a cada fila del almacen; el ranking conserva las de mayor puntuacion.
+ */
+public enum CriterioRanking {
+    /**
+     * Las temperaturas maximas mas altas.
+     */
+    MAS_CALUROSO {
+        @Override
+        public double valor(AemetColumnStore datos, int fila) {
+            return datos.temperaturaMax(fila);
+        }
+    },
+    /**
+     * Las temperaturas minimas mas bajas.
+     */
+    MAS_FRIO {
+        @Override
+        public double valor(AemetColumnStore datos, int fila) {
+            return datos.temperaturaMin(fila);
+        }
+
+        @Override
+        public double puntuacion(AemetColumnStore datos, int fila) {
+            return -datos.temperaturaMin(fila);
+        }
+    },
+    /**
+     * Las precipitaciones mas altas.
+     */
+    MAS_LLUVIOSO {
+        @Override
+        public double valor(AemetColumnStore datos, int fila) {
+            return datos.precipitacion(fila);
+        }
+    },
+    /**
+     * La mayor diferencia entre la temperatura maxima y la minima del dia.
+     */
+    MAYOR_AMPLITUD {
+        @Override
+        public double valor(AemetColumnStore datos, int fila) {
+            return datos.temperaturaMax(fila) - datos.temperaturaMin(fila);
+        }
+    };
+
+    /**
+     * Obtiene el valor de una fila segun el criterio, tal y como se muestra en el ranking.
+     *
+     * @param datos El almacen de mediciones.
+     * @param fila  El indice de la fila.
+     * @return El valor de la fila.
+     */
+    public abstract double valor(AemetColumnStore datos, int fila);
+
+    /**
+     * Obtiene la puntuacion de una fila: cuanto mayor, mas arriba en el ranking.
+     * Coincide con el valor salvo en los criterios en los que gana el valor mas bajo.
+     *
+     * @param datos El almacen de mediciones.
+     * @param fila  El indice de la fila.
+     * @return La puntuacion de la fila.
+     */
+    public double puntuacion(AemetColumnStore datos, int fila) {
+        return valor(datos, fila);
+    }
+}
@@ -0,0 +1,107 @@
+package dev.models;
+
+import dev.services.AemetAggregator;
+
+import java.util.ArrayList;
+
+/**
+ * Esta clase es una version inmutable de los datos cargados: el almacen de mediciones, sus indices por provincia
+ * y por dia y su resumen. Una vez publicada no se modifica, de modo que varios hilos pueden consultarla a la vez sin
+ * bloqueos; una recarga o una actualizacion construye una version nueva sobre una copia del almacen.
+ * El almacen que devuelve {@link #getDatos()} es de solo lectura y no debe modificarse.
+ */
+public class DatosAemet {
+    private final long version;
+    private final AemetColumnStore datos;
+    private final IndiceProvincias indice;
+    /**
+     * El resumen se calcula la primera vez que se pide; hasta entonces es null.
+     */
+    private volatile ResumenAemet resumen;
+    /**
+     * El indice por dia se construye la primera vez que se pide; hasta entonces es null.
+     */
+    private volatile IndiceDias indiceDias;
+
+    /**
+     * Crea una version de los datos y construye su indice por provincia.
+     *
+     * @param version El numero de version, creciente con cada publicacion.
+     * @param datos   El almacen de mediciones, que no debe modificarse despues.
+     * @param resumen El resumen del almacen si ya se ha calculado, o null para calcularlo cuando se pida.
+     */
+    public DatosAemet(long version, AemetColumnStore datos, ResumenAemet resumen) {
+        this.version = version;
+        this.datos = datos;
+        this.indice = IndiceProvincias.construir(datos);
+        this.resumen = resumen;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public AemetColumnStore getDatos() {
+        return datos;
+    }
+
+    public IndiceProvincias getIndice() {
+        return indice;
+    }
+
+    /**
+     * Obtiene el indice por dia de esta version, construyendolo una sola vez aunque lo pidan varios hilos a la vez.
+     *
+     * @return El indice por dia del almacen.
+     */
+    public IndiceDias getIndiceDias() {
+        IndiceDias construido = indiceDias;
+        if (construido == null) {
+            synchronized (this) {
+                construido = indiceDias;
+                if (construido == null) {
+                    construido = IndiceDias.construir(datos);
+                    indiceDias = construido;
+                }
+            }
+        }
+        return construido;
+    }
+
+    /**
+     * Obtiene el resumen de esta version, calculandolo una sola vez aunque lo pidan varios hilos a la vez.
+     *
+     * @return El resumen del almacen.
+     */
+    public ResumenAemet getResumen() {
+        ResumenAemet calculado = resumen;
+        if (calculado == null) {
+            synchronized (this) {
+                calculado = resumen;
+                if (calculado == null) {
+                    calculado = AemetAggregator.agregar(datos);
+                    resumen = calculado;
+                }
+            }
+        }
+        return calculado;
+    }
+
+    /**
+     * Obtiene el resumen solo si ya se ha calculado, sin calcularlo.
+     *
+     * @return El resumen, o null si todavia no se ha pedido.
+     */
+    public ResumenAemet getResumenCalculado() {
+        return resumen;
+    }
+
+    /**
+     * Construye una lista nueva con los objetos Aemet de esta version, que el llamante puede modificar libremente.
+     *
+     * @return Una lista nueva de objetos Aemet.
+     */
+    public ArrayList<Aemet> getLista() {
+        return datos.aLista();
+    }
+}
@@ -0,0 +1,22 @@
+package dev.models;
+
+import lombok.Value;
+
+/**
+ * Esta clase representa una medicion en una posicion de un ranking.
+ */
+@Value
+public class EntradaRanking {
+    /**
+     * La posicion en el ranking, empezando por 1.
+     */
+    int posicion;
+    /**
+     * La medicion.
+     */
+    Aemet medicion;
+    /**
+     * El valor de la medicion segun el criterio del ranking.
+     */
+    double valor;
+}
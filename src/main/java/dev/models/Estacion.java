@@ -0,0 +1,20 @@
+package dev.models;
+
+import lombok.Value;
+
+/**
+ * Esta clase representa una estacion meteorologica de AEMET, identificada por su localidad y su provincia.
+ * Es inmutable y se comparte entre todas las mediciones de la misma estacion: las instancias se obtienen
+ * de {@code EstacionRegistry}, que guarda una sola por estacion.
+ */
+@Value
+public class Estacion {
+    /**
+     * El nombre de la localidad.
+     */
+    String localidad;
+    /**
+     * El nombre de la provincia.
+     */
+    String provincia;
+}
@@ -0,0 +1,134 @@
+package dev.models;
+
+import dev.utils.HyperLogLog;
+import dev.utils.KllSketch;
+import lombok.Getter;
+
+import java.util.BitSet;
+
+/**
+ * Esta clase reune los acumuladores de un grupo de mediciones (por ejemplo, una provincia en un dia).
+ * Los grupos creados con {@link #conDistribuciones()} guardan ademas resumenes aproximados de memoria acotada:
+ * la distribucion de las temperaturas y la precipitacion para obtener medianas y percentiles, y el numero de
+ * localidades distintas con lluvia. Al no depender de los codigos del almacen, se pueden combinar aunque vengan de
+ * almacenes distintos. Ocupan unos kilobytes por grupo, asi que solo se crean para las consultas que los leen.
+ */
+@Getter
+public class GrupoAemet {
+    /**
+     * Acumulador de las temperaturas maximas.
+     */
+    private final Acumulador temperaturaMax = new Acumulador();
+    /**
+     * Acumulador de las temperaturas minimas.
+     */
+    private final Acumulador temperaturaMin = new Acumulador();
+    /**
+     * Acumulador de la temperatura media de cada medicion, (maxima + minima) / 2.
+     */
+    private final Acumulador temperaturaMedia = new Acumulador();
+    /**
+     * Acumulador de las precipitaciones.
+     */
+    private final Acumulador precipitacion = new Acumulador();
+    /**
+     * Codigos de las localidades del grupo donde ha llovido.
+     */
+    private final BitSet localidadesConLluvia = new BitSet();
+    /**
+     * Distribucion de las temperaturas maximas, o null si el grupo no guarda distribuciones.
+     */
+    private final KllSketch distribucionTemperaturaMax;
+    /**
+     * Distribucion de las temperaturas minimas, o null si el grupo no guarda distribuciones.
+     */
+    private final KllSketch distribucionTemperaturaMin;
+    /**
+     * Distribucion de las precipitaciones, o null si el grupo no guarda distribuciones.
+     */
+    private final KllSketch distribucionPrecipitacion;
+    /**
+     * Contador aproximado de las localidades distintas donde ha llovido, por nombre, o null si el grupo
+     * no guarda distribuciones.
+     */
+    private final HyperLogLog localidadesConLluviaDistintas;
+
+    /**
+     * Crea un grupo vacio solo con los acumuladores exactos.
+     */
+    public GrupoAemet() {
+        this(false);
+    }
+
+    private GrupoAemet(boolean conDistribuciones) {
+        distribucionTemperaturaMax = conDistribuciones ? new KllSketch() : null;
+        distribucionTemperaturaMin = conDistribuciones ? new KllSketch() : null;
+        distribucionPrecipitacion = conDistribuciones ? new KllSketch() : null;
+        localidadesConLluviaDistintas = conDistribuciones ? new HyperLogLog() : null;
+    }
+
+    /**
+     * Crea un grupo vacio que ademas guarda las distribuciones.
+     *
+     * @return El grupo vacio.
+     */
+    public static GrupoAemet conDistribuciones() {
+        return new GrupoAemet(true);
+    }
+
+    /**
+     * Indica si el grupo guarda distribuciones.
+     *
+     * @return `true` si el grupo se creo con distribuciones.
+     */
+    public boolean tieneDistribuciones() {
+        return distribucionTemperaturaMax != null;
+    }
+
+    /**
+     * Añade una fila del almacen por columnas al grupo.
+     *
+     * @param datos El almacen de mediciones.
+     * @param fila  El indice de la fila.
+     */
+    public void anadir(AemetColumnStore datos, int fila) {
+        int localidad = datos.localidad(fila);
+        double max = datos.temperaturaMax(fila);
+        double min = datos.temperaturaMin(fila);
+        double lluvia = datos.precipitacion(fila);
+        temperaturaMax.anadir(max, localidad);
+        temperaturaMin.anadir(min, localidad);
+        temperaturaMedia.anadir((max + min) / 2, localidad);
+        precipitacion.anadir(lluvia, localidad);
+        if (lluvia > 0) {
+            localidadesConLluvia.set(localidad);
+        }
+        if (distribucionTemperaturaMax != null) {
+            distribucionTemperaturaMax.anadir(max);
+            distribucionTemperaturaMin.anadir(min);
+            distribucionPrecipitacion.anadir(lluvia);
+            if (lluvia > 0) {
+                localidadesConLluviaDistintas.anadir(datos.getLocalidades().decodificar(localidad));
+            }
+        }
+    }
+
+    /**
+     * Combina otro grupo con este. Las distribuciones solo se combinan si los dos grupos las guardan.
+     *
+     * @param otro El grupo que se desea combinar.
+     */
+    public void combinar(GrupoAemet otro) {
+        temperaturaMax.combinar(otro.temperaturaMax);
+        temperaturaMin.combinar(otro.temperaturaMin);
+        temperaturaMedia.combinar(otro.temperaturaMedia);
+        precipitacion.combinar(otro.precipitacion);
+        localidadesConLluvia.or(otro.localidadesConLluvia);
+        if (tieneDistribuciones() && otro.tieneDistribuciones()) {
+            distribucionTemperaturaMax.combinar(otro.distribucionTemperaturaMax);
+            distribucionTemperaturaMin.combinar(otro.distribucionTemperaturaMin);
+            distribucionPrecipitacion.combinar(otro.distribucionPrecipitacion);
+            localidadesConLluviaDistintas.combinar(otro.localidadesConLluviaDistintas);
+        }
+    }
+}
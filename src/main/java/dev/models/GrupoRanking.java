@@ -0,0 +1,25 @@
+package dev.models;
+
+import lombok.Value;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Esta clase representa el ranking de un grupo de mediciones: todas, una provincia, un dia o una provincia en un dia.
+ */
+@Value
+public class GrupoRanking {
+    /**
+     * La provincia del grupo, o null si el ranking no se agrupa por provincia.
+     */
+    String provincia;
+    /**
+     * El dia del grupo, o null si el ranking no se agrupa por dia.
+     */
+    LocalDate dia;
+    /**
+     * Las mediciones del ranking, de la primera posicion a la ultima.
+     */
+    List<EntradaRanking> entradas;
+}
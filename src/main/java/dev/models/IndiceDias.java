@@ -0,0 +1,229 @@
+package dev.models;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Esta clase es un indice por dia sobre un almacen por columnas para responder consultas sobre rangos de dias.
+ * Guarda dos ordenaciones de las filas, sin mover las del almacen:
+ * <ul>
+ *     <li>Todas las filas ordenadas por dia, con la lista de dias distintos para localizar un rango por busqueda binaria.</li>
+ *     <li>Las filas agrupadas por estacion (localidad y provincia) y ordenadas por dia dentro de cada estacion.</li>
+ * </ul>
+ * Sobre cada ordenacion se guardan las sumas acumuladas de precipitacion y temperaturas, de modo que el total o la
+ * media de un rango de dias se obtiene restando dos sumas en O(log n), sin recorrer las filas.
+ * Las sumas se restan en double, asi que pueden diferir en los ultimos decimales de sumar las filas una a una.
+ */
+public class IndiceDias {
+    /**
+     * Indices de fila del almacen ordenados por dia y fila.
+     */
+    private final int[] filas;
+    /**
+     * Los dias distintos, ordenados.
+     */
+    private final int[] dias;
+    /**
+     * Posicion en {@link #filas} donde empieza cada dia; el dia d ocupa [inicioDia[d], inicioDia[d + 1]).
+     */
+    private final int[] inicioDia;
+    private final Sumas sumasPorDia;
+
+    /**
+     * Numero de estacion de cada par (provincia, localidad), con la clave de {@link ResumenAemet#clave(int, int)}.
+     */
+    private final Map<Long, Integer> estaciones;
+    /**
+     * Posicion donde empiezan las filas de cada estacion en el orden por estacion; la estacion e ocupa
+     * [inicioEstacion[e], inicioEstacion[e + 1]).
+     */
+    private final int[] inicioEstacion;
+    /**
+     * El dia de cada fila en el orden por estacion y dia.
+     */
+    private final int[] diaPorEstacion;
+    private final Sumas sumasPorEstacion;
+
+    private IndiceDias(int[] filas, int[] dias, int[] inicioDia, Sumas sumasPorDia, Map<Long, Integer> estaciones,
+                       int[] inicioEstacion, int[] diaPorEstacion, Sumas sumasPorEstacion) {
+        this.filas = filas;
+        this.dias = dias;
+        this.inicioDia = inicioDia;
+        this.sumasPorDia = sumasPorDia;
+        this.estaciones = estaciones;
+        this.inicioEstacion = inicioEstacion;
+        this.diaPorEstacion = diaPorEstacion;
+        this.sumasPorEstacion = sumasPorEstacion;
+    }
+
+    /**
+     * Construye el indice de un almacen.
+     *
+     * @param datos El almacen de mediciones.
+     * @return El indice por dia.
+     */
+    public static IndiceDias construir(AemetColumnStore datos) {
+        int tamano = datos.tamano();
+
+        // Orden por dia; sin coste extra si el almacen ya esta ordenado por dia, que es lo normal tras una carga.
+        int[] filas = new int[tamano];
+        boolean ordenado = true;
+        for (int fila = 0; fila < tamano; fila++) {
+            filas[fila] = fila;
+            ordenado &= fila == 0 || datos.dia(fila - 1) <= datos.dia(fila);
+        }
+        if (!ordenado) {
+            // Clave (dia, fila) en un long para ordenar sin objetos y conservar el orden de filas dentro del dia.
+            long[] claves = new long[tamano];
+            for (int fila = 0; fila < tamano; fila++) {
+                claves[fila] = ((long) datos.dia(fila) << 32) | fila;
+            }
+            Arrays.sort(claves);
+            for (int i = 0; i < tamano; i++) {
+                filas[i] = (int) claves[i];
+            }
+        }
+        int[] dias = new int[tamano];
+        int[] inicioDia = new int[tamano + 1];
+        int distintos = 0;
+        for (int i = 0; i < tamano; i++) {
+            int dia = datos.dia(filas[i]);
+            if (i == 0 || dia != dias[distintos - 1]) {
+                dias[distintos] = dia;
+                inicioDia[distintos] = i;
+                distintos++;
+            }
+        }
+        inicioDia[distintos] = tamano;
+
+        // Orden por estacion y, dentro de ella, por posicion en el orden por dia (es decir, por dia).
+        Map<Long, Integer> estaciones = new HashMap<>();
+        long[] claves = new long[tamano];
+        for (int i = 0; i < tamano; i++) {
+            int fila = filas[i];
+            int estacion = estaciones.computeIfAbsent(ResumenAemet.clave(datos.provincia(fila), datos.localidad(fila)),
+                    clave -> estaciones.size());
+            claves[i] = ((long) estacion << 32) | i;
+        }
+        Arrays.sort(claves);
+        int[] porEstacion = new int[tamano];
+        int[] diaPorEstacion = new int[tamano];
+        int[] inicioEstacion = new int[estaciones.size() + 1];
+        for (int i = 0; i < tamano; i++) {
+            porEstacion[i] = filas[(int) claves[i]];
+            diaPorEstacion[i] = datos.dia(porEstacion[i]);
+            inicioEstacion[(int) (claves[i] >>> 32) + 1]++;
+        }
+        for (int e = 0; e < estaciones.size(); e++) {
+            inicioEstacion[e + 1] += inicioEstacion[e];
+        }
+
+        return new IndiceDias(filas, Arrays.copyOf(dias, distintos), Arrays.copyOf(inicioDia, distintos + 1),
+                new Sumas(datos, filas), estaciones, inicioEstacion, diaPorEstacion, new Sumas(datos, porEstacion));
+    }
+
+    /**
+     * Obtiene la primera posicion del orden por dia con un dia igual o posterior al dado.
+     *
+     * @param dia El dia epoch.
+     * @return La posicion, o el numero de filas si todos los dias son anteriores.
+     */
+    public int desde(int dia) {
+        int i = Arrays.binarySearch(dias, dia);
+        return inicioDia[i >= 0 ? i : -i - 1];
+    }
+
+    /**
+     * Obtiene la primera posicion del orden por dia con un dia posterior al dado.
+     *
+     * @param dia El dia epoch.
+     * @return La posicion, o el numero de filas si ningun dia es posterior.
+     */
+    public int hasta(int dia) {
+        int i = Arrays.binarySearch(dias, dia);
+        return inicioDia[i >= 0 ? i + 1 : -i - 1];
+    }
+
+    /**
+     * Obtiene el indice de fila del almacen que hay en una posicion del orden por dia.
+     *
+     * @param posicion La posicion dentro del orden por dia.
+     * @return El indice de fila en el almacen.
+     */
+    public int fila(int posicion) {
+        return filas[posicion];
+    }
+
+    /**
+     * Calcula los totales de todas las mediciones de un rango de dias.
+     *
+     * @param desde El primer dia epoch, incluido.
+     * @param hasta El ultimo dia epoch, incluido.
+     * @return Los totales del rango.
+     */
+    public TotalesRango totales(int desde, int hasta) {
+        return desde > hasta ? TotalesRango.VACIO : sumasPorDia.entre(desde(desde), hasta(hasta));
+    }
+
+    /**
+     * Calcula los totales de las mediciones de una estacion en un rango de dias.
+     *
+     * @param localidad El codigo de la localidad.
+     * @param provincia El codigo de la provincia.
+     * @param desde     El primer dia epoch, incluido.
+     * @param hasta     El ultimo dia epoch, incluido.
+     * @return Los totales del rango, vacios si la estacion no tiene mediciones.
+     */
+    public TotalesRango totalesEstacion(int localidad, int provincia, int desde, int hasta) {
+        Integer estacion = estaciones.get(ResumenAemet.clave(provincia, localidad));
+        if (estacion == null || desde > hasta) {
+            return TotalesRango.VACIO;
+        }
+        int inicio = inicioEstacion[estacion];
+        int fin = inicioEstacion[estacion + 1];
+        return sumasPorEstacion.entre(primeraPosicion(inicio, fin, desde), primeraPosicion(inicio, fin, (long) hasta + 1));
+    }
+
+    /**
+     * Busca en un tramo de {@link #diaPorEstacion} la primera posicion con un dia igual o posterior al dado.
+     */
+    private int primeraPosicion(int inicio, int fin, long dia) {
+        while (inicio < fin) {
+            int medio = (inicio + fin) >>> 1;
+            if (diaPorEstacion[medio] < dia) {
+                inicio = medio + 1;
+            } else {
+                fin = medio;
+            }
+        }
+        return inicio;
+    }
+
+    /**
+     * Sumas acumuladas sobre una ordenacion de las filas: la posicion i guarda la suma de las i primeras filas.
+     */
+    private static final class Sumas {
+        private final double[] precipitacion;
+        private final double[] temperaturaMax;
+        private final double[] temperaturaMin;
+
+        Sumas(AemetColumnStore datos, int[] orden) {
+            precipitacion = new double[orden.length + 1];
+            temperaturaMax = new double[orden.length + 1];
+            temperaturaMin = new double[orden.length + 1];
+            for (int i = 0; i < orden.length; i++) {
+                precipitacion[i + 1] = precipitacion[i] + datos.precipitacion(orden[i]);
+                temperaturaMax[i + 1] = temperaturaMax[i] + datos.temperaturaMax(orden[i]);
+                temperaturaMin[i + 1] = temperaturaMin[i] + datos.temperaturaMin(orden[i]);
+            }
+        }
+
+        TotalesRango entre(int desde, int hasta) {
+            return new TotalesRango(hasta - desde,
+                    precipitacion[hasta] - precipitacion[desde],
+                    temperaturaMax[hasta] - temperaturaMax[desde],
+                    temperaturaMin[hasta] - temperaturaMin[desde]);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package dev.models;
+
+import java.util.Arrays;
+
+/**
+ * Esta clase es un indice jerarquico provincia → dia → filas sobre un almacen por columnas.
+ * Guarda los indices de fila ordenados por provincia y dia, de modo que las filas de una provincia
+ * en un dia forman un rango contiguo y un informe por provincia solo recorre las filas de esa provincia.
+ */
+public class IndiceProvincias {
+    /**
+     * Indices de fila del almacen ordenados por provincia, dia y fila.
+     */
+    private final int[] filas;
+    /**
+     * Para cada provincia, el primer tramo de dia que le corresponde; la provincia p ocupa los tramos
+     * [primerTramo[p], primerTramo[p + 1]).
+     */
+    private final int[] primerTramo;
+    /**
+     * El dia epoch de cada tramo.
+     */
+    private final int[] diaTramo;
+    /**
+     * Posicion en {@link #filas} donde empieza cada tramo; el tramo t ocupa [inicioTramo[t], inicioTramo[t + 1]).
+     */
+    private final int[] inicioTramo;
+
+    private IndiceProvincias(int[] filas, int[] primerTramo, int[] diaTramo, int[] inicioTramo) {
+        this.filas = filas;
+        this.primerTramo = primerTramo;
+        this.diaTramo = diaTramo;
+        this.inicioTramo = inicioTramo;
+    }
+
+    /**
+     * Construye el indice de un almacen.
+     *
+     * @param datos El almacen de mediciones.
+     * @return El indice por provincia y dia.
+     */
+    public static IndiceProvincias construir(AemetColumnStore datos) {
+        int tamano = datos.tamano();
+        int provincias = datos.getProvincias().tamano();
+
+        // Ordenacion por conteo segun la provincia, estable respecto al orden de las filas.
+        int[] inicioProvincia = new int[provincias + 1];
+        for (int fila = 0; fila < tamano; fila++) {
+            inicioProvincia[datos.provincia(fila) + 1]++;
+        }
+        for (int p = 0; p < provincias; p++) {
+            inicioProvincia[p + 1] += inicioProvincia[p];
+        }
+        int[] filas = new int[tamano];
+        int[] siguiente = Arrays.copyOf(inicioProvincia, provincias);
+        for (int fila = 0; fila < tamano; fila++) {
+            filas[siguiente[datos.provincia(fila)]++] = fila;
+        }
+
+        // Dentro de cada provincia se ordena por dia (sin coste extra si el almacen ya esta ordenado por dia)
+        // y se cortan los tramos de cada dia.
+        int[] primerTramo = new int[provincias + 1];
+        int[] diaTramo = new int[Math.max(1, tamano)];
+        int[] inicioTramo = new int[tamano + 1];
+        int tramos = 0;
+        for (int p = 0; p < provincias; p++) {
+            int desde = inicioProvincia[p];
+            int hasta = inicioProvincia[p + 1];
+            ordenarPorDia(datos, filas, desde, hasta);
+            primerTramo[p] = tramos;
+            for (int i = desde; i < hasta; i++) {
+                int dia = datos.dia(filas[i]);
+                if (i == desde || dia != diaTramo[tramos - 1]) {
+                    diaTramo[tramos] = dia;
+                    inicioTramo[tramos] = i;
+                    tramos++;
+                }
+            }
+        }
+        primerTramo[provincias] = tramos;
+        inicioTramo[tramos] = tamano;
+
+        return new IndiceProvincias(filas, primerTramo,
+                Arrays.copyOf(diaTramo, tramos), Arrays.copyOf(inicioTramo, tramos + 1));
+    }
+
+    /**
+     * Obtiene el primer tramo de dia de una provincia.
+     *
+     * @param provincia El codigo de la provincia.
+     * @return El indice del primer tramo, incluido.
+     */
+    public int primerTramo(int provincia) {
+        return primerTramo[provincia];
+    }
+
+    /**
+     * Obtiene el final de los tramos de dia de una provincia.
+     *
+     * @param provincia El codigo de la provincia.
+     * @return El indice del ultimo tramo, excluido.
+     */
+    public int finTramos(int provincia) {
+        return primerTramo[provincia + 1];
+    }
+
+    /**
+     * Obtiene el dia de un tramo.
+     *
+     * @param tramo El indice del tramo.
+     * @return El dia epoch del tramo.
+     */
+    public int dia(int tramo) {
+        return diaTramo[tramo];
+    }
+
+    /**
+     * Obtiene la posicion donde empieza un tramo.
+     *
+     * @param tramo El indice del tramo.
+     * @return La primera posicion del tramo, incluida.
+     */
+    public int inicio(int tramo) {
+        return inicioTramo[tramo];
+    }
+
+    /**
+     * Obtiene la posicion donde acaba un tramo.
+     *
+     * @param tramo El indice del tramo.
+     * @return La ultima posicion del tramo, excluida.
+     */
+    public int fin(int tramo) {
+        return inicioTramo[tramo + 1];
+    }
+
+    /**
+     * Obtiene el indice de fila del almacen que hay en una posicion del indice.
+     *
+     * @param posicion La posicion dentro del indice.
+     * @return El indice de fila en el almacen.
+     */
+    public int fila(int posicion) {
+        return filas[posicion];
+    }
+
+    private static void ordenarPorDia(AemetColumnStore datos, int[] filas, int desde, int hasta) {
+        boolean ordenado = true;
+        for (int i = desde + 1; i < hasta && ordenado; i++) {
+            ordenado = datos.dia(filas[i - 1]) <= datos.dia(filas[i]);
+        }
+        if (ordenado) {
+            return;
+        }
+        // Clave (dia, fila) en un long para ordenar sin objetos y conservar el orden de filas dentro del dia.
+        long[] claves = new long[hasta - desde];
+        for (int i = desde; i < hasta; i++) {
+            claves[i - desde] = ((long) datos.dia(filas[i]) << 32) | filas[i];
+        }
+        Arrays.sort(claves);
+        for (int i = desde; i < hasta; i++) {
+            filas[i] = (int) claves[i - desde];
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package dev.models;
+
+import lombok.*;
+
+/**
+ * Esta clase representa la precipitacion acumulada de una localidad.
+ */
+@Data
+@Builder
+public class LocalidadPrecipitacion {
+    /**
+     * El nombre de la localidad.
+     */
+    private String localidad;
+    /**
+     * La provincia de la localidad.
+     */
+    private String provincia;
+    /**
+     * La suma de las precipitaciones registradas en la localidad.
+     */
+    private double precipitacionTotal;
+}
@@ -0,0 +1,29 @@
+package dev.models;
+
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Esta clase representa la precipitacion maxima de un dia y el lugar donde se registro.
+ */
+@Data
+@Builder
+public class PrecipitacionMaximaDia {
+    /**
+     * El dia agregado.
+     */
+    private LocalDate dia;
+    /**
+     * La localidad donde se registro la precipitacion maxima.
+     */
+    private String localidad;
+    /**
+     * La provincia de la localidad.
+     */
+    private String provincia;
+    /**
+     * La precipitacion maxima del dia.
+     */
+    private double precipitacion;
+}
@@ -0,0 +1,139 @@
+package dev.models;
+
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Esta clase contiene los grupos agregados de un almacen de mediciones: por provincia y dia, por dia y por localidad.
+ * Los codigos de localidad y provincia de los grupos son los del almacen del que se calcularon.
+ * Los grupos solo tienen los acumuladores exactos; las distribuciones se calculan aparte cuando se piden.
+ */
+@Getter
+public class ResumenAemet {
+    /**
+     * El almacen del que se calcularon los grupos, usado para decodificar localidades y provincias.
+     */
+    private final AemetColumnStore datos;
+    /**
+     * Grupos por provincia y dia, con la clave calculada por {@link #clave(int, int)}.
+     */
+    private final Map<Long, GrupoAemet> porProvinciaYDia = new HashMap<>();
+    /**
+     * Grupos por dia epoch.
+     */
+    private final Map<Integer, GrupoAemet> porDia = new HashMap<>();
+    /**
+     * Grupos por codigo de localidad.
+     */
+    private final Map<Integer, GrupoAemet> porLocalidad = new HashMap<>();
+
+    public ResumenAemet(AemetColumnStore datos) {
+        this.datos = datos;
+    }
+
+    /**
+     * Añade una fila del almacen a todos sus grupos.
+     *
+     * @param fila El indice de la fila.
+     */
+    public void anadir(int fila) {
+        int dia = datos.dia(fila);
+        porProvinciaYDia.computeIfAbsent(clave(datos.provincia(fila), dia), k -> new GrupoAemet()).anadir(datos, fila);
+        porDia.computeIfAbsent(dia, k -> new GrupoAemet()).anadir(datos, fila);
+        porLocalidad.computeIfAbsent(datos.localidad(fila), k -> new GrupoAemet()).anadir(datos, fila);
+    }
+
+    /**
+     * Combina los grupos de otro resumen, calculado sobre el mismo almacen, con los de este.
+     *
+     * @param otro El resumen que se desea combinar.
+     */
+    public void combinar(ResumenAemet otro) {
+        otro.porProvinciaYDia.forEach((clave, grupo) -> porProvinciaYDia.computeIfAbsent(clave, k -> new GrupoAemet()).combinar(grupo));
+        otro.porDia.forEach((dia, grupo) -> porDia.computeIfAbsent(dia, k -> new GrupoAemet()).combinar(grupo));
+        otro.porLocalidad.forEach((localidad, grupo) -> porLocalidad.computeIfAbsent(localidad, k -> new GrupoAemet()).combinar(grupo));
+    }
+
+    /**
+     * Combina los grupos de otro resumen, calculado sobre el mismo almacen, con los de este, quedandose con los
+     * grupos del otro que este no tiene en lugar de copiarlos. Es mas rapido que {@link #combinar(ResumenAemet)}
+     * cuando los dos resumenes tienen pocos grupos en comun, pero el otro resumen no debe usarse despues.
+     *
+     * @param otro El resumen que se desea combinar, que queda compartiendo grupos con este.
+     */
+    public void absorber(ResumenAemet otro) {
+        absorber(porProvinciaYDia, otro.porProvinciaYDia);
+        absorber(porDia, otro.porDia);
+        absorber(porLocalidad, otro.porLocalidad);
+    }
+
+    private static <K> void absorber(Map<K, GrupoAemet> grupos, Map<K, GrupoAemet> otros) {
+        otros.forEach((clave, grupo) -> {
+            GrupoAemet existente = grupos.putIfAbsent(clave, grupo);
+            if (existente != null) {
+                existente.combinar(grupo);
+            }
+        });
+    }
+
+    /**
+     * Obtiene el grupo de una provincia en un dia.
+     *
+     * @param provincia El nombre de la provincia.
+     * @param dia       El dia.
+     * @return El grupo, o null si la provincia es null o no hay mediciones de esa provincia ese dia.
+     */
+    public GrupoAemet grupo(String provincia, LocalDate dia) {
+        int codigo = datos.getProvincias().buscar(provincia);
+        return codigo < 0 ? null : porProvinciaYDia.get(clave(codigo, (int) dia.toEpochDay()));
+    }
+
+    /**
+     * Obtiene los grupos por provincia y dia ordenados por nombre de provincia y por dia.
+     *
+     * @return Un mapa ordenado de provincia a un mapa ordenado de dia a grupo.
+     */
+    public Map<String, Map<LocalDate, GrupoAemet>> porProvinciaYDiaOrdenado() {
+        Map<String, Map<LocalDate, GrupoAemet>> ordenado = new TreeMap<>();
+        porProvinciaYDia.forEach((clave, grupo) -> ordenado
+                .computeIfAbsent(datos.getProvincias().decodificar((int) (clave >>> 32)), k -> new TreeMap<>())
+                .put(LocalDate.ofEpochDay((int) (long) clave), grupo));
+        return ordenado;
+    }
+
+    /**
+     * Obtiene los grupos por dia ordenados por dia.
+     *
+     * @return Un mapa ordenado de dia a grupo.
+     */
+    public Map<LocalDate, GrupoAemet> porDiaOrdenado() {
+        Map<LocalDate, GrupoAemet> ordenado = new TreeMap<>();
+        porDia.forEach((dia, grupo) -> ordenado.put(LocalDate.ofEpochDay(dia), grupo));
+        return ordenado;
+    }
+
+    /**
+     * Obtiene el nombre de una localidad a partir de su codigo.
+     *
+     * @param codigo El codigo de la localidad.
+     * @return El nombre de la localidad, o una cadena vacia si el codigo no es valido.
+     */
+    public String localidad(int codigo) {
+        return codigo < 0 ? "" : datos.getLocalidades().decodificar(codigo);
+    }
+
+    /**
+     * Calcula la clave de un grupo por provincia y dia.
+     *
+     * @param provincia El codigo de la provincia.
+     * @param dia       El dia epoch.
+     * @return La clave que combina provincia y dia.
+     */
+    public static long clave(int provincia, int dia) {
+        return ((long) provincia << 32) | (dia & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,33 @@
+package dev.models;
+
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Esta clase representa las temperaturas agregadas de una provincia en un dia.
+ */
+@Data
+@Builder
+public class TemperaturaProvinciaDia {
+    /**
+     * El nombre de la provincia.
+     */
+    private String provincia;
+    /**
+     * El dia agregado.
+     */
+    private LocalDate dia;
+    /**
+     * La temperatura maxima de la provincia ese dia.
+     */
+    private double temperaturaMax;
+    /**
+     * La temperatura minima de la provincia ese dia.
+     */
+    private double temperaturaMin;
+    /**
+     * La media de la temperatura de las mediciones, (maxima + minima) / 2.
+     */
+    private double temperaturaMedia;
+}
@@ -0,0 +1,59 @@
+package dev.models;
+
+import lombok.Value;
+
+/**
+ * Esta clase representa los totales de las mediciones de un rango de dias: cuantas hay y la suma de su
+ * precipitacion y de sus temperaturas maximas y minimas, de las que se obtienen las medias.
+ */
+@Value
+public class TotalesRango {
+    /**
+     * Los totales de un rango sin mediciones.
+     */
+    public static final TotalesRango VACIO = new TotalesRango(0, 0, 0, 0);
+
+    /**
+     * El numero de mediciones del rango.
+     */
+    int mediciones;
+    /**
+     * La precipitacion total del rango.
+     */
+    double precipitacion;
+    /**
+     * La suma de las temperaturas maximas del rango.
+     */
+    double sumaTemperaturaMax;
+    /**
+     * La suma de las temperaturas minimas del rango.
+     */
+    double sumaTemperaturaMin;
+
+    /**
+     * Calcula la precipitacion media por medicion.
+     *
+     * @return La media, o NaN si no hay mediciones.
+     */
+    public double getPrecipitacionMedia() {
+        return mediciones == 0 ? Double.NaN : precipitacion / mediciones;
+    }
+
+    /**
+     * Calcula la media de las temperaturas maximas.
+     *
+     * @return La media, o NaN si no hay mediciones.
+     */
+    public double getTemperaturaMaxMedia() {
+        return mediciones == 0 ? Double.NaN : sumaTemperaturaMax / mediciones;
+    }
+
+    /**
+     * Calcula la media de las temperaturas minimas.
+     *
+     * @return La media, o NaN si no hay mediciones.
+     */
+    public double getTemperaturaMinMedia() {
+        return mediciones == 0 ? Double.NaN : sumaTemperaturaMin / mediciones;
+    }
+}
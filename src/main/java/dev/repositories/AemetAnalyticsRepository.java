@@ -0,0 +1,40 @@
+package dev.repositories;
+
+import dev.models.LocalidadPrecipitacion;
+import dev.models.PrecipitacionMaximaDia;
+import dev.models.TemperaturaProvinciaDia;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Esta interfaz define las consultas estadisticas sobre las mediciones de AEMET.
+ * Las agregaciones se resuelven en la base de datos y solo se devuelven los resultados.
+ */
+public interface AemetAnalyticsRepository {
+
+    /**
+     * Obtiene la temperatura maxima, minima y media de cada provincia en cada dia.
+     *
+     * @return Una lista ordenada por provincia y dia.
+     * @throws SQLException Si ocurre un error durante la operacion.
+     */
+    List<TemperaturaProvinciaDia> temperaturasPorProvinciaYDia() throws SQLException;
+
+    /**
+     * Obtiene la precipitacion maxima de cada dia y la localidad donde se registro.
+     *
+     * @return Una lista ordenada por dia.
+     * @throws SQLException Si ocurre un error durante la operacion.
+     */
+    List<PrecipitacionMaximaDia> precipitacionMaximaPorDia() throws SQLException;
+
+    /**
+     * Obtiene la localidad con mayor precipitacion acumulada.
+     *
+     * @return Un objeto Optional con la localidad, o vacio si no hay mediciones.
+     * @throws SQLException Si ocurre un error durante la operacion.
+     */
+    Optional<LocalidadPrecipitacion> localidadMasLluviosa() throws SQLException;
+}
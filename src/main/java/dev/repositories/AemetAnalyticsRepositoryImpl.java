@@ -0,0 +1,128 @@
+package dev.repositories;
+
+import dev.models.LocalidadPrecipitacion;
+import dev.models.PrecipitacionMaximaDia;
+import dev.models.TemperaturaProvinciaDia;
+import dev.services.DatabaseManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Esta clase implementa la interfaz AemetAnalyticsRepository.
+ * Cada consulta agrupa con GROUP BY o funciones ventana en SQLite, uniendo las mediciones con el catalogo de
+ * estaciones por su id entero, de modo que solo viajan desde la base de datos las filas del resultado.
+ */
+public class AemetAnalyticsRepositoryImpl implements AemetAnalyticsRepository {
+
+    private static AemetAnalyticsRepositoryImpl instance;
+    private final Logger logger = LoggerFactory.getLogger(AemetAnalyticsRepositoryImpl.class);
+
+    private final DatabaseManager db;
+
+    private AemetAnalyticsRepositoryImpl(DatabaseManager db) {
+        this.db = db;
+    }
+
+    public static AemetAnalyticsRepositoryImpl getInstance(DatabaseManager db) {
+        if (instance == null) {
+            instance = new AemetAnalyticsRepositoryImpl(db);
+        }
+        return instance;
+    }
+
+    /**
+     * Obtiene la temperatura maxima, minima y media de cada provincia en cada dia.
+     *
+     * @return Una lista ordenada por provincia y dia.
+     * @throws SQLException Si se produce un error al acceder a la base de datos.
+     */
+    @Override
+    public List<TemperaturaProvinciaDia> temperaturasPorProvinciaYDia() throws SQLException {
+        logger.debug("Obteniendo las temperaturas por provincia y dia");
+        String query = "SELECT e.provincia AS provincia, a.dia AS dia, MAX(a.temperaturaMax) AS maxima, MIN(a.temperaturaMin) AS minima, "
+                + "AVG((a.temperaturaMax + a.temperaturaMin) / 2) AS media "
+                + "FROM Aemet a JOIN Estacion e ON e.id = a.estacionId GROUP BY e.provincia, a.dia ORDER BY e.provincia, a.dia";
+        try (var connection = db.getConnection();
+             var stmt = connection.prepareStatement(query)
+        ) {
+            var rs = stmt.executeQuery();
+            var lista = new ArrayList<TemperaturaProvinciaDia>();
+            while (rs.next()) {
+                lista.add(TemperaturaProvinciaDia.builder()
+                        .provincia(rs.getString("provincia"))
+                        .dia(LocalDate.ofEpochDay(rs.getLong("dia")))
+                        .temperaturaMax(rs.getDouble("maxima"))
+                        .temperaturaMin(rs.getDouble("minima"))
+                        .temperaturaMedia(rs.getDouble("media"))
+                        .build());
+            }
+            return lista;
+        }
+    }
+
+    /**
+     * Obtiene la precipitacion maxima de cada dia y la localidad donde se registro.
+     * En caso de empate se devuelve la medicion guardada primero.
+     *
+     * @return Una lista ordenada por dia.
+     * @throws SQLException Si se produce un error al acceder a la base de datos.
+     */
+    @Override
+    public List<PrecipitacionMaximaDia> precipitacionMaximaPorDia() throws SQLException {
+        logger.debug("Obteniendo la precipitacion maxima por dia");
+        String query = "SELECT m.dia AS dia, e.localidad AS localidad, e.provincia AS provincia, m.precipitacion AS precipitacion FROM ("
+                + "SELECT dia, estacionId, precipitacion, "
+                + "ROW_NUMBER() OVER (PARTITION BY dia ORDER BY precipitacion DESC, id) AS posicion FROM Aemet"
+                + ") m JOIN Estacion e ON e.id = m.estacionId WHERE m.posicion = 1 ORDER BY m.dia";
+        try (var connection = db.getConnection();
+             var stmt = connection.prepareStatement(query)
+        ) {
+            var rs = stmt.executeQuery();
+            var lista = new ArrayList<PrecipitacionMaximaDia>();
+            while (rs.next()) {
+                lista.add(PrecipitacionMaximaDia.builder()
+                        .dia(LocalDate.ofEpochDay(rs.getLong("dia")))
+                        .localidad(rs.getString("localidad"))
+                        .provincia(rs.getString("provincia"))
+                        .precipitacion(rs.getDouble("precipitacion"))
+                        .build());
+            }
+            return lista;
+        }
+    }
+
+    /**
+     * Obtiene la localidad con mayor precipitacion acumulada.
+     *
+     * @return Un objeto Optional con la localidad, o vacio si no hay mediciones.
+     * @throws SQLException Si se produce un error al acceder a la base de datos.
+     */
+    @Override
+    public Optional<LocalidadPrecipitacion> localidadMasLluviosa() throws SQLException {
+        logger.debug("Obteniendo la localidad mas lluviosa");
+        // Se agrupa por el id entero de la estacion y solo se une con el catalogo para el resultado.
+        String query = "SELECT e.localidad AS localidad, e.provincia AS provincia, t.total AS total FROM ("
+                + "SELECT estacionId, SUM(precipitacion) AS total FROM Aemet GROUP BY estacionId"
+                + ") t JOIN Estacion e ON e.id = t.estacionId ORDER BY t.total DESC, e.localidad LIMIT 1";
+        try (var connection = db.getConnection();
+             var stmt = connection.prepareStatement(query)
+        ) {
+            var rs = stmt.executeQuery();
+            Optional<LocalidadPrecipitacion> localidad = Optional.empty();
+            if (rs.next()) {
+                localidad = Optional.of(LocalidadPrecipitacion.builder()
+                        .localidad(rs.getString("localidad"))
+                        .provincia(rs.getString("provincia"))
+                        .precipitacionTotal(rs.getDouble("total"))
+                        .build());
+            }
+            return localidad;
+        }
+    }
+}
@@ -1,10 +1,70 @@
 package dev.repositories;
 
 import dev.models.Aemet;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 /**
  * Esta interfaz define un repositorio para acceder y gestionar los datos de AEMET.
  * Proporciona métodos para realizar operaciones CRUD (Crear, Leer, Actualizar, Eliminar) en objetos Aemet.
  *
  */
 public interface AemetRepository extends CrudRepository<Aemet, Long> {
+
+    /**
+     * Busca las mediciones de un dia.
+     *
+     * @param dia El dia de las mediciones.
+     * @return Una lista de objetos Aemet.
+     * @throws SQLException Si ocurre un error durante la operacion.
+     */
+    List<Aemet> findByDia(LocalDate dia) throws SQLException;
+
+    /**
+     * Busca las mediciones de una provincia en un dia.
+     *
+     * @param provincia El nombre de la provincia.
+     * @param dia       El dia de las mediciones.
+     * @return Una lista de objetos Aemet.
+     * @throws SQLException Si ocurre un error durante la operacion.
+     */
+    List<Aemet> findByProvinciaAndDia(String provincia, LocalDate dia) throws SQLException;
+
+    /**
+     * Busca las mediciones de una estacion entre dos dias, ambos incluidos. La estacion se identifica por su
+     * localidad y su provincia, porque hay localidades con el mismo nombre en provincias distintas.
+     *
+     * @param localidad El nombre de la localidad.
+     * @param provincia El nombre de la provincia.
+     * @param desde     El primer dia del rango.
+     * @param hasta     El ultimo dia del rango.
+     * @return Una lista de objetos Aemet ordenada por dia.
+     * @throws SQLException Si ocurre un error durante la operacion.
+     */
+    List<Aemet> findByLocalidadAndProvinciaAndDiaBetween(String localidad, String provincia, LocalDate desde, LocalDate hasta) throws SQLException;
+
+    /**
+     * Guarda varias mediciones en una sola transaccion, sustituyendo la medicion que ya hubiera de la misma
+     * estacion y dia. Volver a importar las mismas mediciones no cambia nada.
+     *
+     * @param mediciones Las mediciones que se desean guardar.
+     * @return El numero de mediciones insertadas o modificadas; las que ya estaban igual no cuentan.
+     * @throws SQLException Si ocurre un error durante la operacion; en ese caso no se guarda ninguna.
+     */
+    int upsertAll(Collection<Aemet> mediciones) throws SQLException;
+
+    /**
+     * Sustituye las mediciones de un dia por las dadas en una sola transaccion: se guardan con
+     * {@link #upsertAll(Collection)} y se borran las de las estaciones de ese dia que ya no aparecen.
+     * Las mediciones de los demas dias no se tocan.
+     *
+     * @param dia        El dia que se desea sustituir.
+     * @param mediciones Las mediciones nuevas del dia.
+     * @return El numero de mediciones insertadas, modificadas o borradas.
+     * @throws SQLException Si ocurre un error durante la operacion; en ese caso el dia queda como estaba.
+     * @throws IllegalArgumentException Si alguna medicion es de otro dia.
+     */
+    int reemplazarDia(LocalDate dia, Collection<Aemet> mediciones) throws SQLException;
 }
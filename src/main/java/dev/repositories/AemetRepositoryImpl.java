@@ -3,33 +3,70 @@ package dev.repositories;
 import dev.controllers.AemetController;
 import dev.controllers.ExportJSON;
 import dev.models.Aemet;
+import dev.models.Estacion;
+import dev.services.AemetMetrics;
 import dev.services.DatabaseManager;
+import dev.services.EstacionRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.FileWriter;
 import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
 import java.sql.Statement;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import java.util.UUID;
 
 /**
  * Esta clase implementa la interfaz AemetRepository.
  * Permite realizar operaciones CRUD (Crear, Leer, Actualizar, Eliminar) en Amet.
+ * La latencia de cada operacion se registra en {@link AemetMetrics} con el nombre "repositorio.operacion".
  */
 public class AemetRepositoryImpl implements AemetRepository {
 
+    private static final String INSERT_QUERY = "INSERT INTO Aemet (estacionId, temperaturaMax, horaTemperaturaMax, temperaturaMin, horaTemperaturaMin, precipitacion, dia) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    /**
+     * Insercion que, si ya hay una medicion de la estacion ese dia, la actualiza conservando su id. La condicion
+     * evita reescribir las filas que no cambian, asi que repetir una importacion apenas escribe en disco.
+     */
+    private static final String UPSERT_QUERY = INSERT_QUERY + " ON CONFLICT (estacionId, dia) DO UPDATE SET "
+            + "temperaturaMax = excluded.temperaturaMax, horaTemperaturaMax = excluded.horaTemperaturaMax, "
+            + "temperaturaMin = excluded.temperaturaMin, horaTemperaturaMin = excluded.horaTemperaturaMin, "
+            + "precipitacion = excluded.precipitacion "
+            + "WHERE Aemet.temperaturaMax IS NOT excluded.temperaturaMax OR Aemet.horaTemperaturaMax IS NOT excluded.horaTemperaturaMax "
+            + "OR Aemet.temperaturaMin IS NOT excluded.temperaturaMin OR Aemet.horaTemperaturaMin IS NOT excluded.horaTemperaturaMin "
+            + "OR Aemet.precipitacion IS NOT excluded.precipitacion";
     private static AemetRepositoryImpl instance;
     private final Logger logger = LoggerFactory.getLogger(AemetRepositoryImpl.class);
 
     private final DatabaseManager db;
+    private final EstacionRegistry registro = EstacionRegistry.getInstance();
+    private final AemetMetrics metricas = AemetMetrics.getInstance();
+    /**
+     * Catalogo de estaciones en memoria, en los dos sentidos. Las estaciones no se modifican ni se borran,
+     * asi que sus ids solo dejan de valer si se deshace la transaccion que las creo.
+     */
+    private final Map<Long, Estacion> estacionesPorId = new ConcurrentHashMap<>();
+    private final Map<Estacion, Long> idsEstacion = new ConcurrentHashMap<>();
 
     private AemetRepositoryImpl(DatabaseManager db) {
         this.db = db;
@@ -53,26 +90,67 @@ public class AemetRepositoryImpl implements AemetRepository {
     public List<Aemet> findAll() throws SQLException {
         logger.debug("Obteniendo todas las mediciones");
         var query = "SELECT * FROM Aemet";
-        try (var connection = db.getConnection();
-             var stmt = connection.prepareStatement(query)
-        ) {
+        return metricas.medir("repositorio.findAll", () -> {
+            try (var connection = db.getConnection();
+                 var stmt = connection.prepareStatement(query)
+            ) {
+                return mapearLista(stmt.executeQuery(), connection);
+            }
+        });
+    }
+
+    /**
+     * Recorre todas las mediciones meteorologicas de la base de datos con un cursor, leyendo las filas
+     * de "database.fetchSize" en "database.fetchSize" segun se consume el Stream.
+     *
+     * @return Un Stream de objetos Aemet que debe cerrarse para devolver la conexion al pool.
+     * @throws SQLException Si se produce un error al acceder a la base de datos.
+     */
+    @Override
+    public Stream<Aemet> streamAll() throws SQLException {
+        return streamAll(db.getFetchSize());
+    }
+
+    /**
+     * Recorre todas las mediciones meteorologicas de la base de datos con un cursor.
+     * Las filas se convierten en objetos Aemet solo cuando el Stream las pide, y al cerrar el Stream
+     * se cierran el ResultSet y la sentencia y se devuelve la conexion al pool.
+     *
+     * @param fetchSize El numero de filas que se piden al driver en cada lectura.
+     * @return Un Stream de objetos Aemet que debe cerrarse para devolver la conexion al pool.
+     * @throws SQLException Si se produce un error al acceder a la base de datos.
+     */
+    public Stream<Aemet> streamAll(int fetchSize) throws SQLException {
+        logger.debug("Recorriendo todas las mediciones en bloques de " + fetchSize);
+        var connection = db.getConnection();
+        try {
+            var stmt = connection.prepareStatement("SELECT * FROM Aemet");
+            stmt.setFetchSize(fetchSize);
             var rs = stmt.executeQuery();
-            var lista = new ArrayList<Aemet>();
-            while (rs.next()) {
-                Aemet aemet = Aemet.builder()
-                        .id(rs.getLong("id"))
-                        .localidad(rs.getString("localidad"))
-                        .provincia(rs.getString("provincia"))
-                        .temperaturaMax(rs.getDouble("temperaturaMax"))
-                        .horaTemperaturaMax(rs.getObject("horaTemperaturaMax", LocalTime.class))
-                        .temperaturaMin(rs.getDouble("temperaturaMin"))
-                        .horaTemperaturaMin(rs.getObject("horaTemperaturaMin", LocalTime.class))
-                        .precipitacion(rs.getDouble("precipitacion"))
-                        .dia(rs.getObject("dia", LocalDate.class))
-                        .build();
-                lista.add(aemet);
-            }
-            return lista;
+            var filas = new Spliterators.AbstractSpliterator<Aemet>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super Aemet> accion) {
+                    try {
+                        if (!rs.next()) {
+                            return false;
+                        }
+                        accion.accept(mapearAemet(rs, connection));
+                        return true;
+                    } catch (SQLException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            };
+            return StreamSupport.stream(filas, false).onClose(() -> {
+                try (connection; stmt; rs) {
+                    logger.debug("Recorrido de mediciones cerrado");
+                } catch (SQLException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
         }
     }
 
@@ -87,28 +165,93 @@ public class AemetRepositoryImpl implements AemetRepository {
     public Optional<Aemet> findById(Long id) throws SQLException {
         logger.debug("Obteniendo la medicion con id: " + id);
         String query = "SELECT * FROM Aemet WHERE id = ?";
-        try (var connection = db.getConnection();
-             var stmt = connection.prepareStatement(query)
-        ) {
-            stmt.setLong(1, id);
-            var rs = stmt.executeQuery();
-            Optional<Aemet> aemet = Optional.empty();
-            while (rs.next()) {
-                aemet = Optional.of(Aemet.builder()
-                        .id(rs.getLong("id"))
-                        .localidad(rs.getString("localidad"))
-                        .provincia(rs.getString("provincia"))
-                        .temperaturaMax(rs.getDouble("temperaturaMax"))
-                        .horaTemperaturaMax(rs.getObject("horaTemperaturaMax", LocalTime.class))
-                        .temperaturaMin(rs.getDouble("temperaturaMin"))
-                        .horaTemperaturaMin(rs.getObject("horaTemperaturaMin", LocalTime.class))
-                        .precipitacion(rs.getDouble("precipitacion"))
-                        .dia(rs.getObject("dia", LocalDate.class))
-                        .build()
-                );
-            }
-            return aemet;
-        }
+        return metricas.medir("repositorio.findById", () -> {
+            try (var connection = db.getConnection();
+                 var stmt = connection.prepareStatement(query)
+            ) {
+                stmt.setLong(1, id);
+                var rs = stmt.executeQuery();
+                Optional<Aemet> aemet = Optional.empty();
+                while (rs.next()) {
+                    aemet = Optional.of(mapearAemet(rs, connection));
+                }
+                return aemet;
+            }
+        });
+    }
+
+    /**
+     * Busca las mediciones meteorologicas de un dia, usando el indice por dia.
+     *
+     * @param dia El dia de las mediciones.
+     * @return Una lista de objetos Aemet.
+     * @throws SQLException Si se produce un error al acceder a la base de datos.
+     */
+    @Override
+    public List<Aemet> findByDia(LocalDate dia) throws SQLException {
+        logger.debug("Obteniendo las mediciones del dia: " + dia);
+        String query = "SELECT * FROM Aemet WHERE dia = ?";
+        return metricas.medir("repositorio.findByDia", () -> {
+            try (var connection = db.getConnection();
+                 var stmt = connection.prepareStatement(query)
+            ) {
+                stmt.setLong(1, dia.toEpochDay());
+                return mapearLista(stmt.executeQuery(), connection);
+            }
+        });
+    }
+
+    /**
+     * Busca las mediciones meteorologicas de una provincia en un dia, usando el indice de estaciones por provincia
+     * y el de mediciones por estacion y dia.
+     *
+     * @param provincia El nombre de la provincia.
+     * @param dia       El dia de las mediciones.
+     * @return Una lista de objetos Aemet.
+     * @throws SQLException Si se produce un error al acceder a la base de datos.
+     */
+    @Override
+    public List<Aemet> findByProvinciaAndDia(String provincia, LocalDate dia) throws SQLException {
+        logger.debug("Obteniendo las mediciones de " + provincia + " del dia: " + dia);
+        String query = "SELECT a.* FROM Aemet a JOIN Estacion e ON e.id = a.estacionId WHERE e.provincia = ? AND a.dia = ?";
+        return metricas.medir("repositorio.findByProvinciaAndDia", () -> {
+            try (var connection = db.getConnection();
+                 var stmt = connection.prepareStatement(query)
+            ) {
+                stmt.setString(1, provincia);
+                stmt.setLong(2, dia.toEpochDay());
+                return mapearLista(stmt.executeQuery(), connection);
+            }
+        });
+    }
+
+    /**
+     * Busca las mediciones meteorologicas de una estacion entre dos dias, ambos incluidos, usando la clave unica
+     * de localidad y provincia del catalogo de estaciones y el indice por estacion y dia.
+     *
+     * @param localidad El nombre de la localidad.
+     * @param provincia El nombre de la provincia.
+     * @param desde     El primer dia del rango.
+     * @param hasta     El ultimo dia del rango.
+     * @return Una lista de objetos Aemet ordenada por dia.
+     * @throws SQLException Si se produce un error al acceder a la base de datos.
+     */
+    @Override
+    public List<Aemet> findByLocalidadAndProvinciaAndDiaBetween(String localidad, String provincia, LocalDate desde, LocalDate hasta) throws SQLException {
+        logger.debug("Obteniendo las mediciones de " + localidad + " (" + provincia + ") entre " + desde + " y " + hasta);
+        String query = "SELECT a.* FROM Aemet a JOIN Estacion e ON e.id = a.estacionId "
+                + "WHERE e.localidad = ? AND e.provincia = ? AND a.dia BETWEEN ? AND ? ORDER BY a.dia, a.id";
+        return metricas.medir("repositorio.findByLocalidadAndProvinciaAndDiaBetween", () -> {
+            try (var connection = db.getConnection();
+                 var stmt = connection.prepareStatement(query)
+            ) {
+                stmt.setString(1, localidad);
+                stmt.setString(2, provincia);
+                stmt.setLong(3, desde.toEpochDay());
+                stmt.setLong(4, hasta.toEpochDay());
+                return mapearLista(stmt.executeQuery(), connection);
+            }
+        });
     }
 
     /**
@@ -116,37 +259,258 @@ public class AemetRepositoryImpl implements AemetRepository {
      *
      * @param aemet La medicion meteorologica que se desea guardar.
      * @return La medicion meteorologica guardada, que puede contener el identificador unico asignados.
-     * @throws SQLException Si se produce un error al acceder a la base de datos.
+     * @throws SQLException Si se produce un error al acceder a la base de datos o si ya hay una medicion de la
+     *                      estacion ese dia; para volver a importar mediciones se usa {@link #upsertAll(Collection)}.
      */
     @Override
     public Aemet save(Aemet aemet) throws SQLException  {
         logger.debug("Guardando la medicion: " + aemet);
-        String query = "INSERT INTO Aemet (localidad, provincia, temperaturaMax, horaTemperaturaMax, temperaturaMin, horaTemperaturaMin, precipitacion, dia) VALUES (?, ?, ?, ?, ?, ?, ? ,?)";
-        try (var connection = db.getConnection();
-             var stmt = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)
-        ) {
-            stmt.setString(1, aemet.getLocalidad());
-            stmt.setString(2, aemet.getProvincia());
-            stmt.setDouble(3, aemet.getTemperaturaMax());
-            stmt.setString(4, aemet.getHoraTemperaturaMax().toString());
-            stmt.setDouble(5, aemet.getTemperaturaMin());
-            stmt.setString(6, aemet.getHoraTemperaturaMin().toString());
-            stmt.setDouble(7, aemet.getPrecipitacion());
-            stmt.setString(8, aemet.getDia().toString());
-            var res = stmt.executeUpdate();
-            // connection.commit();
-            if (res > 0) {
-                var stmt2 = connection.prepareStatement("SELECT LAST_INSERT_ROWID()");
-                ResultSet rs = stmt2.executeQuery();
-                while (rs.next()) {
-                    aemet.setId(rs.getLong(1));
+        return metricas.medir("repositorio.save", () -> {
+            try (var connection = db.getWriteConnection();
+                 var stmt = connection.prepareStatement(INSERT_QUERY, Statement.RETURN_GENERATED_KEYS)
+            ) {
+                asignarParametros(stmt, aemet, connection);
+                var res = stmt.executeUpdate();
+                if (res > 0) {
+                    aemet.setId(ultimaClaveGenerada(stmt));
+                } else {
+                    logger.error("Medicion no guardada");
+                }
+                return aemet;
+            }
+        });
+    }
+
+    /**
+     * Guarda varias mediciones meteorologicas en la base de datos en una sola transaccion,
+     * agrupando las inserciones en lotes del tamaño configurado en "database.batchSize".
+     *
+     * @param mediciones Las mediciones meteorologicas que se desean guardar.
+     * @return Las mediciones guardadas, con el identificador unico asignado.
+     * @throws SQLException Si se produce un error al acceder a la base de datos; en ese caso no se guarda ninguna.
+     */
+    @Override
+    public List<Aemet> saveAll(Collection<Aemet> mediciones) throws SQLException {
+        return saveAll(mediciones, db.getBatchSize());
+    }
+
+    /**
+     * Guarda varias mediciones meteorologicas en la base de datos en una sola transaccion,
+     * agrupando las inserciones en lotes con addBatch/executeBatch.
+     *
+     * @param mediciones Las mediciones meteorologicas que se desean guardar.
+     * @param tamanoLote El numero de inserciones de cada lote.
+     * @return Las mediciones guardadas, con el identificador unico asignado.
+     * @throws SQLException Si se produce un error al acceder a la base de datos; en ese caso no se guarda ninguna.
+     *                      Si falla por otra excepcion, como una medicion incompleta, tampoco se guarda ninguna.
+     */
+    public List<Aemet> saveAll(Collection<Aemet> mediciones, int tamanoLote) throws SQLException {
+        logger.debug("Guardando " + mediciones.size() + " mediciones en lotes de " + tamanoLote);
+        var guardadas = new ArrayList<Aemet>(mediciones.size());
+        return metricas.medir("repositorio.saveAll", () -> {
+            try (var connection = db.getWriteConnection();
+                 var stmt = connection.prepareStatement(INSERT_QUERY, Statement.RETURN_GENERATED_KEYS)
+            ) {
+                return enTransaccion(connection, () -> {
+                    var lote = new ArrayList<Aemet>(tamanoLote);
+                    for (Aemet aemet : mediciones) {
+                        asignarParametros(stmt, aemet, connection);
+                        stmt.addBatch();
+                        lote.add(aemet);
+                        if (lote.size() == tamanoLote) {
+                            ejecutarLote(stmt, lote);
+                            guardadas.addAll(lote);
+                            lote.clear();
+                        }
+                    }
+                    if (!lote.isEmpty()) {
+                        ejecutarLote(stmt, lote);
+                        guardadas.addAll(lote);
+                    }
+                    return guardadas;
+                });
+            } catch (SQLException | RuntimeException e) {
+                // Los identificadores asignados en la transaccion deshecha ya no existen.
+                guardadas.forEach(aemet -> aemet.setId(null));
+                throw e;
+            }
+        });
+    }
+
+    /**
+     * Ejecuta un lote de inserciones y asigna a cada medicion su identificador generado.
+     * Dentro de la transaccion no hay otros escritores, asi que SQLite asigna identificadores consecutivos
+     * y basta con conocer la ultima clave del lote para deducir el resto.
+     */
+    private void ejecutarLote(PreparedStatement stmt, List<Aemet> lote) throws SQLException {
+        stmt.executeBatch();
+        long primera = ultimaClaveGenerada(stmt) - lote.size() + 1;
+        for (int i = 0; i < lote.size(); i++) {
+            lote.get(i).setId(primera + i);
+        }
+    }
+
+    /**
+     * Obtiene la ultima clave generada con getGeneratedKeys o, si el driver no lo implementa, con LAST_INSERT_ROWID().
+     */
+    private long ultimaClaveGenerada(PreparedStatement stmt) throws SQLException {
+        long ultima = 0;
+        try (var rs = stmt.getGeneratedKeys()) {
+            while (rs.next()) {
+                ultima = rs.getLong(1);
+            }
+            return ultima;
+        } catch (SQLFeatureNotSupportedException e) {
+            try (var stmt2 = stmt.getConnection().prepareStatement("SELECT LAST_INSERT_ROWID()");
+                 var rs = stmt2.executeQuery()) {
+                if (rs.next()) {
+                    ultima = rs.getLong(1);
                 }
-                rs.close();
-            } else {
-                logger.error("Medicion no guardada");
             }
+            return ultima;
         }
-        return aemet;
+    }
+
+    /**
+     * Guarda varias mediciones meteorologicas en una sola transaccion, sustituyendo la medicion que ya hubiera de la
+     * misma estacion y dia, con lotes del tamaño configurado en "database.batchSize".
+     *
+     * @param mediciones Las mediciones meteorologicas que se desean guardar.
+     * @return El numero de mediciones insertadas o modificadas.
+     * @throws SQLException Si se produce un error al acceder a la base de datos; en ese caso no se guarda ninguna.
+     */
+    @Override
+    public int upsertAll(Collection<Aemet> mediciones) throws SQLException {
+        return upsertAll(mediciones, db.getBatchSize());
+    }
+
+    /**
+     * Guarda varias mediciones meteorologicas en una sola transaccion con INSERT ... ON CONFLICT DO UPDATE,
+     * agrupando las sentencias en lotes con addBatch/executeBatch.
+     * Las mediciones no reciben su identificador, porque en un lote no se sabe cuales se insertaron y cuales
+     * se actualizaron; se pueden volver a leer con {@link #findByDia(LocalDate)}.
+     *
+     * @param mediciones Las mediciones meteorologicas que se desean guardar.
+     * @param tamanoLote El numero de sentencias de cada lote.
+     * @return El numero de mediciones insertadas o modificadas.
+     * @throws SQLException Si se produce un error al acceder a la base de datos; en ese caso no se guarda ninguna.
+     */
+    public int upsertAll(Collection<Aemet> mediciones, int tamanoLote) throws SQLException {
+        logger.debug("Guardando o actualizando " + mediciones.size() + " mediciones en lotes de " + tamanoLote);
+        return metricas.medir("repositorio.upsertAll", () -> {
+            try (var connection = db.getWriteConnection()) {
+                return enTransaccion(connection, () -> upsert(connection, mediciones, tamanoLote));
+            }
+        });
+    }
+
+    /**
+     * Sustituye las mediciones de un dia por las dadas en una sola transaccion. Las estaciones que siguen
+     * apareciendo conservan el id de su medicion; las que ya no aparecen pierden la suya.
+     *
+     * @param dia        El dia que se desea sustituir.
+     * @param mediciones Las mediciones nuevas del dia.
+     * @return El numero de mediciones insertadas, modificadas o borradas.
+     * @throws SQLException Si se produce un error al acceder a la base de datos; en ese caso el dia queda como estaba.
+     */
+    @Override
+    public int reemplazarDia(LocalDate dia, Collection<Aemet> mediciones) throws SQLException {
+        for (Aemet aemet : mediciones) {
+            if (!dia.equals(aemet.getDia())) {
+                throw new IllegalArgumentException("La medicion no es del dia " + dia + ": " + aemet);
+            }
+        }
+        logger.debug("Sustituyendo las mediciones del dia " + dia + " por " + mediciones.size() + " mediciones");
+        return metricas.medir("repositorio.reemplazarDia", () -> {
+            try (var connection = db.getWriteConnection()) {
+                return enTransaccion(connection, () -> {
+                    Set<Long> anteriores = new HashSet<>();
+                    try (var stmt = connection.prepareStatement("SELECT estacionId FROM Aemet WHERE dia = ?")) {
+                        stmt.setLong(1, dia.toEpochDay());
+                        var rs = stmt.executeQuery();
+                        while (rs.next()) {
+                            anteriores.add(rs.getLong(1));
+                        }
+                    }
+                    int cambios = upsert(connection, mediciones, db.getBatchSize());
+                    for (Aemet aemet : mediciones) {
+                        anteriores.remove(idEstacion(registro.obtener(aemet.getLocalidad(), aemet.getProvincia()), connection));
+                    }
+                    if (!anteriores.isEmpty()) {
+                        try (var stmt = connection.prepareStatement("DELETE FROM Aemet WHERE estacionId = ? AND dia = ?")) {
+                            for (long estacionId : anteriores) {
+                                stmt.setLong(1, estacionId);
+                                stmt.setLong(2, dia.toEpochDay());
+                                stmt.addBatch();
+                            }
+                            cambios += contarCambios(stmt.executeBatch());
+                        }
+                    }
+                    return cambios;
+                });
+            }
+        });
+    }
+
+    /**
+     * Ejecuta el upsert de las mediciones en lotes, dentro de la transaccion en curso.
+     */
+    private int upsert(Connection connection, Collection<Aemet> mediciones, int tamanoLote) throws SQLException {
+        int cambios = 0;
+        try (var stmt = connection.prepareStatement(UPSERT_QUERY)) {
+            int enLote = 0;
+            for (Aemet aemet : mediciones) {
+                asignarParametros(stmt, aemet, connection);
+                stmt.addBatch();
+                if (++enLote == tamanoLote) {
+                    cambios += contarCambios(stmt.executeBatch());
+                    enLote = 0;
+                }
+            }
+            if (enLote > 0) {
+                cambios += contarCambios(stmt.executeBatch());
+            }
+        }
+        return cambios;
+    }
+
+    private static int contarCambios(int[] resultados) {
+        int cambios = 0;
+        for (int resultado : resultados) {
+            if (resultado > 0) {
+                cambios += resultado;
+            }
+        }
+        return cambios;
+    }
+
+    /**
+     * Ejecuta una operacion en una transaccion de la conexion de escritura y la deshace si falla.
+     */
+    private <T> T enTransaccion(Connection connection, OperacionSql<T> operacion) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            T resultado = operacion.ejecutar();
+            connection.commit();
+            return resultado;
+        } catch (SQLException | RuntimeException e) {
+            logger.error("Mediciones no guardadas, se deshace la transaccion: " + e.getMessage());
+            connection.rollback();
+            // Las estaciones creadas en la transaccion tampoco existen ya.
+            olvidarEstaciones();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Una operacion sobre la base de datos que puede lanzar SQLException.
+     */
+    @FunctionalInterface
+    private interface OperacionSql<T> {
+        T ejecutar() throws SQLException;
     }
 
     /**
@@ -159,27 +523,22 @@ public class AemetRepositoryImpl implements AemetRepository {
     @Override
     public Aemet update(Aemet aemet) throws SQLException  {
         logger.debug("Actualizando la medicion: " + aemet);
-        String query = "UPDATE Aemet SET localidad =?, provincia =?, temperaturaMax =?, horaTemperaturaMax =?, temperaturaMin =?, horaTemperaturaMin =?, precipitacion =?, dia =? WHERE id =?";
-        try (var connection = db.getConnection();
-             var stmt = connection.prepareStatement(query)
-        ) {
-            stmt.setString(1, aemet.getLocalidad());
-            stmt.setString(2, aemet.getProvincia());
-            stmt.setDouble(3, aemet.getTemperaturaMax());
-            stmt.setString(4, aemet.getHoraTemperaturaMax().toString());
-            stmt.setDouble(5, aemet.getTemperaturaMin());
-            stmt.setString(6, aemet.getHoraTemperaturaMin().toString());
-            stmt.setDouble(7, aemet.getPrecipitacion());
-            stmt.setString(8, aemet.getDia().toString());
-            stmt.setLong(9, aemet.getId());
-            var res = stmt.executeUpdate();
-            if (res > 0) {
-                logger.debug("Medicion actualizada");
-            } else {
-                logger.error("La medicion no pudo ser actualizada al no encontrarse en la base de datos con id: " + aemet.getId());
+        String query = "UPDATE Aemet SET estacionId =?, temperaturaMax =?, horaTemperaturaMax =?, temperaturaMin =?, horaTemperaturaMin =?, precipitacion =?, dia =? WHERE id =?";
+        return metricas.medir("repositorio.update", () -> {
+            try (var connection = db.getWriteConnection();
+                 var stmt = connection.prepareStatement(query)
+            ) {
+                asignarParametros(stmt, aemet, connection);
+                stmt.setLong(8, aemet.getId());
+                var res = stmt.executeUpdate();
+                if (res > 0) {
+                    logger.debug("Medicion actualizada");
+                } else {
+                    logger.error("La medicion no pudo ser actualizada al no encontrarse en la base de datos con id: " + aemet.getId());
+                }
+                return aemet;
             }
-        }
-        return aemet;
+        });
     }
 
     /**
@@ -193,13 +552,15 @@ public class AemetRepositoryImpl implements AemetRepository {
     public boolean deleteById(Long id) throws SQLException {
         logger.debug("Borrando la medicion con id: " + id);
         String query = "DELETE FROM Aemet WHERE id =?";
-        try (var connection = db.getConnection();
-             var stmt = connection.prepareStatement(query)
-        ) {
-            stmt.setLong(1, id);
-            var res = stmt.executeUpdate();
-            return res > 0;
-        }
+        return metricas.medir("repositorio.deleteById", () -> {
+            try (var connection = db.getWriteConnection();
+                 var stmt = connection.prepareStatement(query)
+            ) {
+                stmt.setLong(1, id);
+                var res = stmt.executeUpdate();
+                return res > 0;
+            }
+        });
     }
 
     /**
@@ -211,11 +572,115 @@ public class AemetRepositoryImpl implements AemetRepository {
     public void deleteAll() throws SQLException {
         logger.debug("Borrando todos las mediciones");
         String query = "DELETE FROM Aemet";
-        try (var connection = db.getConnection();
-             var stmt = connection.prepareStatement(query)
-        ) {
-            stmt.executeUpdate();
+        metricas.medir("repositorio.deleteAll", () -> {
+            try (var connection = db.getWriteConnection();
+                 var stmt = connection.prepareStatement(query)
+            ) {
+                return stmt.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Convierte la fila actual de un ResultSet de la tabla Aemet en un objeto Aemet.
+     * La localidad y la provincia se toman de la estacion compartida, sin leer cadenas de cada fila.
+     */
+    private Aemet mapearAemet(ResultSet rs, Connection connection) throws SQLException {
+        Estacion estacion = estacion(rs.getLong("estacionId"), connection);
+        return Aemet.builder()
+                .id(rs.getLong("id"))
+                .localidad(estacion.getLocalidad())
+                .provincia(estacion.getProvincia())
+                .temperaturaMax(rs.getDouble("temperaturaMax"))
+                .horaTemperaturaMax(LocalTime.ofSecondOfDay(rs.getInt("horaTemperaturaMax") * 60L))
+                .temperaturaMin(rs.getDouble("temperaturaMin"))
+                .horaTemperaturaMin(LocalTime.ofSecondOfDay(rs.getInt("horaTemperaturaMin") * 60L))
+                .precipitacion(rs.getDouble("precipitacion"))
+                .dia(LocalDate.ofEpochDay(rs.getLong("dia")))
+                .build();
+    }
+
+    /**
+     * Convierte todas las filas de un ResultSet de la tabla Aemet en una lista de objetos Aemet.
+     */
+    private List<Aemet> mapearLista(ResultSet rs, Connection connection) throws SQLException {
+        var lista = new ArrayList<Aemet>();
+        while (rs.next()) {
+            lista.add(mapearAemet(rs, connection));
+        }
+        return lista;
+    }
+
+    /**
+     * Asigna los campos de una medicion a los parametros de una sentencia INSERT o UPDATE, en el orden de sus columnas.
+     * La localidad y la provincia se guardan como el id de su estacion, el dia como dia epoch y las horas como minuto del dia.
+     */
+    private void asignarParametros(PreparedStatement stmt, Aemet aemet, Connection connection) throws SQLException {
+        stmt.setLong(1, idEstacion(registro.obtener(aemet.getLocalidad(), aemet.getProvincia()), connection));
+        stmt.setDouble(2, aemet.getTemperaturaMax());
+        stmt.setInt(3, aemet.getHoraTemperaturaMax().toSecondOfDay() / 60);
+        stmt.setDouble(4, aemet.getTemperaturaMin());
+        stmt.setInt(5, aemet.getHoraTemperaturaMin().toSecondOfDay() / 60);
+        stmt.setDouble(6, aemet.getPrecipitacion());
+        stmt.setLong(7, aemet.getDia().toEpochDay());
+    }
+
+    /**
+     * Obtiene la estacion de un id del catalogo. Si no esta en memoria se vuelve a leer el catalogo completo,
+     * que es pequeño, en lugar de buscar las estaciones de una en una.
+     */
+    private Estacion estacion(long id, Connection connection) throws SQLException {
+        Estacion estacion = estacionesPorId.get(id);
+        if (estacion == null) {
+            logger.debug("Cargando el catalogo de estaciones");
+            try (var stmt = connection.prepareStatement("SELECT id, localidad, provincia FROM Estacion")) {
+                var rs = stmt.executeQuery();
+                while (rs.next()) {
+                    recordarEstacion(rs.getLong("id"), registro.obtener(rs.getString("localidad"), rs.getString("provincia")));
+                }
+            }
+            estacion = estacionesPorId.get(id);
+            if (estacion == null) {
+                throw new SQLException("No existe la estacion con id: " + id);
+            }
+        }
+        return estacion;
+    }
+
+    /**
+     * Obtiene el id de una estacion en el catalogo, dandola de alta si todavia no existe.
+     * Debe llamarse con la conexion de escritura, dentro de la transaccion que va a usar el id.
+     */
+    private long idEstacion(Estacion estacion, Connection connection) throws SQLException {
+        Long id = idsEstacion.get(estacion);
+        if (id == null) {
+            try (var insertar = connection.prepareStatement("INSERT OR IGNORE INTO Estacion (localidad, provincia) VALUES (?, ?)")) {
+                insertar.setString(1, estacion.getLocalidad());
+                insertar.setString(2, estacion.getProvincia());
+                insertar.executeUpdate();
+            }
+            try (var buscar = connection.prepareStatement("SELECT id FROM Estacion WHERE localidad = ? AND provincia = ?")) {
+                buscar.setString(1, estacion.getLocalidad());
+                buscar.setString(2, estacion.getProvincia());
+                var rs = buscar.executeQuery();
+                if (!rs.next()) {
+                    throw new SQLException("No se pudo dar de alta la estacion: " + estacion);
+                }
+                id = rs.getLong(1);
+            }
+            recordarEstacion(id, estacion);
         }
+        return id;
+    }
+
+    private void recordarEstacion(long id, Estacion estacion) {
+        estacionesPorId.put(id, estacion);
+        idsEstacion.put(estacion, id);
+    }
+
+    private void olvidarEstaciones() {
+        estacionesPorId.clear();
+        idsEstacion.clear();
     }
 
     /**
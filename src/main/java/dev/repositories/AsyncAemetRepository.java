@@ -0,0 +1,230 @@
+package dev.repositories;
+
+import dev.models.Aemet;
+import dev.services.AemetMetrics;
+import dev.services.DatabaseManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Esta clase ofrece las operaciones CRUD de un {@link AemetRepository} de forma asincrona: cada metodo devuelve al
+ * momento un CompletableFuture y la operacion bloqueante se ejecuta en otro hilo, de modo que quien la pide no se
+ * queda esperando a SQLite.
+ * Las operaciones se limitan como el pool de conexiones: una escritura a la vez, porque SQLite solo admite un
+ * escritor, y tantas lecturas a la vez como conexiones de lectura. Las que superan el limite esperan en cola sin
+ * ocupar una conexion, asi que nunca agotan la espera maxima del pool.
+ * Si la JVM tiene hilos virtuales (Java 21 o posterior) cada operacion usa uno, y cientos de consultas pueden estar
+ * en curso sin un hilo del sistema por cada una. En versiones anteriores se usan un hilo de escritura y un hilo por
+ * conexion de lectura, con las mismas colas.
+ */
+public class AsyncAemetRepository implements AutoCloseable {
+    private static AsyncAemetRepository instance;
+    private final Logger logger = LoggerFactory.getLogger(AsyncAemetRepository.class);
+
+    private final AemetRepository repositorio;
+    private final AemetMetrics metricas = AemetMetrics.getInstance();
+    private final boolean hilosVirtuales;
+    private final ExecutorService escritor;
+    private final ExecutorService lectores;
+    private final Semaphore escritura = new Semaphore(1, true);
+    private final Semaphore lectura;
+
+    private AsyncAemetRepository(AemetRepository repositorio, int lecturasSimultaneas) {
+        this.repositorio = repositorio;
+        this.lectura = new Semaphore(lecturasSimultaneas, true);
+        ExecutorService virtual = crearEjecutorVirtual();
+        this.hilosVirtuales = virtual != null;
+        if (hilosVirtuales) {
+            escritor = virtual;
+            lectores = virtual;
+        } else {
+            escritor = Executors.newSingleThreadExecutor(fabricaHilos("aemet-escritor"));
+            lectores = Executors.newFixedThreadPool(lecturasSimultaneas, fabricaHilos("aemet-lector"));
+        }
+        logger.debug("Repositorio asincrono con " + (hilosVirtuales ? "hilos virtuales" : "hilos del sistema")
+                + " y " + lecturasSimultaneas + " lecturas simultaneas");
+    }
+
+    /**
+     * Obtiene la instancia unica del repositorio asincrono, que envuelve a {@link AemetRepositoryImpl} y admite
+     * tantas lecturas simultaneas como conexiones de lectura tiene el pool.
+     *
+     * @param db El gestor de la base de datos.
+     * @return La instancia unica de AsyncAemetRepository.
+     */
+    public static synchronized AsyncAemetRepository getInstance(DatabaseManager db) {
+        if (instance == null) {
+            instance = new AsyncAemetRepository(AemetRepositoryImpl.getInstance(db), db.getPoolSize());
+        }
+        return instance;
+    }
+
+    /**
+     * Guarda una medicion meteorologica.
+     *
+     * @param aemet La medicion que se desea guardar.
+     * @return Un futuro con la medicion guardada, con su identificador unico asignado.
+     */
+    public CompletableFuture<Aemet> save(Aemet aemet) {
+        return escribir(() -> repositorio.save(aemet));
+    }
+
+    /**
+     * Guarda varias mediciones meteorologicas en una sola transaccion.
+     *
+     * @param mediciones Las mediciones que se desean guardar.
+     * @return Un futuro con las mediciones guardadas; si falla, no se guarda ninguna.
+     */
+    public CompletableFuture<List<Aemet>> saveAll(Collection<Aemet> mediciones) {
+        return escribir(() -> repositorio.saveAll(mediciones));
+    }
+
+    /**
+     * Guarda varias mediciones meteorologicas en una sola transaccion, sustituyendo las que ya hubiera de la
+     * misma estacion y dia.
+     *
+     * @param mediciones Las mediciones que se desean guardar.
+     * @return Un futuro con el numero de mediciones insertadas o modificadas; si falla, no se guarda ninguna.
+     */
+    public CompletableFuture<Integer> upsertAll(Collection<Aemet> mediciones) {
+        return escribir(() -> repositorio.upsertAll(mediciones));
+    }
+
+    /**
+     * Actualiza una medicion meteorologica existente.
+     *
+     * @param aemet La medicion actualizada.
+     * @return Un futuro con la medicion actualizada.
+     */
+    public CompletableFuture<Aemet> update(Aemet aemet) {
+        return escribir(() -> repositorio.update(aemet));
+    }
+
+    /**
+     * Elimina una medicion meteorologica por su identificador unico.
+     *
+     * @param id El identificador unico de la medicion.
+     * @return Un futuro con `true` si la medicion se elimino y `false` si no se encontro.
+     */
+    public CompletableFuture<Boolean> deleteById(Long id) {
+        return escribir(() -> repositorio.deleteById(id));
+    }
+
+    /**
+     * Busca una medicion meteorologica por su identificador unico.
+     *
+     * @param id El identificador unico de la medicion.
+     * @return Un futuro con la medicion encontrada, o vacio si no existe.
+     */
+    public CompletableFuture<Optional<Aemet>> findById(Long id) {
+        return leer(() -> repositorio.findById(id));
+    }
+
+    /**
+     * Obtiene todas las mediciones meteorologicas.
+     *
+     * @return Un futuro con la lista de mediciones.
+     */
+    public CompletableFuture<List<Aemet>> findAll() {
+        return leer(repositorio::findAll);
+    }
+
+    /**
+     * Indica si las operaciones se ejecutan en hilos virtuales.
+     *
+     * @return `true` si la JVM tiene hilos virtuales.
+     */
+    public boolean isHilosVirtuales() {
+        return hilosVirtuales;
+    }
+
+    /**
+     * Deja de aceptar operaciones. Las que ya estaban en cola se terminan de ejecutar.
+     */
+    @Override
+    public void close() {
+        escritor.shutdown();
+        lectores.shutdown();
+    }
+
+    private <T> CompletableFuture<T> escribir(Operacion<T> operacion) {
+        return ejecutar(escritor, escritura, "asincrono.cola.escritura", operacion);
+    }
+
+    private <T> CompletableFuture<T> leer(Operacion<T> operacion) {
+        return ejecutar(lectores, lectura, "asincrono.cola.lectura", operacion);
+    }
+
+    /**
+     * Ejecuta una operacion cuando hay un permiso libre y completa el futuro con su resultado o su excepcion.
+     * El tiempo desde que se pide hasta que empieza se registra en {@link AemetMetrics}.
+     */
+    private <T> CompletableFuture<T> ejecutar(ExecutorService ejecutor, Semaphore permisos, String cola, Operacion<T> operacion) {
+        CompletableFuture<T> futuro = new CompletableFuture<>();
+        long pedida = System.nanoTime();
+        try {
+            ejecutor.execute(() -> {
+                try {
+                    permisos.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    futuro.completeExceptionally(e);
+                    return;
+                }
+                try {
+                    metricas.latencia(cola).registrar(System.nanoTime() - pedida);
+                    futuro.complete(operacion.ejecutar());
+                } catch (Throwable e) {
+                    futuro.completeExceptionally(e);
+                } finally {
+                    permisos.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            futuro.completeExceptionally(e);
+        }
+        return futuro;
+    }
+
+    /**
+     * Crea un ejecutor con un hilo virtual por tarea. Se busca por reflexion porque el proyecto compila con Java 17.
+     *
+     * @return El ejecutor, o null si la JVM no tiene hilos virtuales.
+     */
+    private ExecutorService crearEjecutorVirtual() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory fabricaHilos(String nombre) {
+        AtomicInteger numero = new AtomicInteger();
+        return tarea -> {
+            Thread hilo = new Thread(tarea, nombre + "-" + numero.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        };
+    }
+
+    /**
+     * Una operacion del repositorio que puede lanzar SQLException.
+     */
+    @FunctionalInterface
+    private interface Operacion<T> {
+        T ejecutar() throws SQLException;
+    }
+}
@@ -1,8 +1,10 @@
 package dev.repositories;
 
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Esta interfaz define un conjunto de operaciones CRUD (Crear, Leer, Actualizar, Eliminar).
@@ -21,6 +23,15 @@ public interface CrudRepository<T, ID> {
      */
     T save(T t) throws SQLException;
 
+    /**
+     * Guarda varios objetos en el repositorio en una unica operacion.
+     *
+     * @param t Los objetos que se desean guardar.
+     * @return Los objetos guardados, que pueden contener informacion actualizada (como un identificador unico).
+     * @throws SQLException Si ocurre un error durante la operacion de guardar; en ese caso no se guarda ninguno.
+     */
+    List<T> saveAll(Collection<T> t) throws SQLException;
+
     /**
      * Actualiza un objeto en el repositorio.
      *
@@ -47,6 +58,16 @@ public interface CrudRepository<T, ID> {
      */
     List<T> findAll() throws SQLException;
 
+    /**
+     * Recorre todos los objetos del repositorio sin cargarlos a la vez en memoria.
+     * El Stream mantiene abiertos los recursos de la consulta hasta que se cierra, por lo que debe usarse
+     * en un try-with-resources.
+     *
+     * @return Un Stream que lee los objetos segun se recorre.
+     * @throws SQLException Si ocurre un error al iniciar la consulta.
+     */
+    Stream<T> streamAll() throws SQLException;
+
     /**
      * Elimina un objeto por su identificador unico.
      *
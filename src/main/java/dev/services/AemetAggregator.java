@@ -0,0 +1,106 @@
+package dev.services;
+
+import dev.models.AemetColumnStore;
+import dev.models.ResumenAemet;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Esta clase calcula en un solo recorrido del almacen todos los grupos que necesitan los informes:
+ * por provincia y dia, por dia y por localidad.
+ * Las filas se reparten en tramos de {@value #TAMANO_TRAMO}: cada tramo se agrega en su propio resumen, sin
+ * compartir nada con los demas, y los resumenes se combinan despues en el orden de los tramos. Como los tramos
+ * y el orden de combinacion no dependen de como se ejecuten, el calculo en paralelo da exactamente el mismo
+ * resultado que el secuencial, incluidas las sumas en double.
+ * Las filas suelen estar ordenadas por dia, asi que casi todos los grupos de provincia y dia caen en un solo
+ * tramo y al combinar se aprovechan tal cual, sin copiarlos.
+ */
+public class AemetAggregator {
+    /**
+     * Numero de filas de cada tramo. Un almacen con menos filas se agrega en un solo recorrido, como un unico tramo.
+     */
+    public static final int TAMANO_TRAMO = 1 << 16;
+
+    private AemetAggregator() {
+    }
+
+    /**
+     * Agrega todas las filas de un almacen.
+     *
+     * @param datos El almacen de mediciones.
+     * @return El resumen con todos los grupos.
+     */
+    public static ResumenAemet agregar(AemetColumnStore datos) {
+        return agregar(datos, 0, datos.tamano());
+    }
+
+    /**
+     * Agrega un rango de filas de un almacen, en paralelo en el pool fork-join comun si tiene mas de un tramo y
+     * el pool mas de un hilo, y en el hilo actual si no.
+     *
+     * @param datos El almacen de mediciones.
+     * @param desde La primera fila del rango, incluida.
+     * @param hasta La ultima fila del rango, excluida.
+     * @return El resumen con los grupos de las filas del rango.
+     */
+    public static ResumenAemet agregar(AemetColumnStore datos, int desde, int hasta) {
+        if (hasta - desde > TAMANO_TRAMO && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            return agregarParalelo(datos, desde, hasta);
+        }
+        return agregarSecuencial(datos, desde, hasta);
+    }
+
+    /**
+     * Agrega un rango de filas de un almacen en el hilo actual, tramo a tramo.
+     *
+     * @param datos El almacen de mediciones.
+     * @param desde La primera fila del rango, incluida.
+     * @param hasta La ultima fila del rango, excluida.
+     * @return El resumen con los grupos de las filas del rango.
+     */
+    public static ResumenAemet agregarSecuencial(AemetColumnStore datos, int desde, int hasta) {
+        // Cada tramo se combina en cuanto se calcula, para no tener mas de dos resumenes a la vez.
+        ResumenAemet resumen = agregarTramo(datos, desde, hasta, 0);
+        for (int tramo = 1; tramo < numeroTramos(desde, hasta); tramo++) {
+            resumen.absorber(agregarTramo(datos, desde, hasta, tramo));
+        }
+        return resumen;
+    }
+
+    /**
+     * Agrega un rango de filas de un almacen calculando los tramos en paralelo en el pool fork-join comun.
+     * El resultado es identico al de {@link #agregarSecuencial(AemetColumnStore, int, int)}.
+     *
+     * @param datos El almacen de mediciones, que no debe modificarse durante el calculo.
+     * @param desde La primera fila del rango, incluida.
+     * @param hasta La ultima fila del rango, excluida.
+     * @return El resumen con los grupos de las filas del rango.
+     */
+    public static ResumenAemet agregarParalelo(AemetColumnStore datos, int desde, int hasta) {
+        // toList conserva el orden de los tramos aunque se calculen en cualquier orden.
+        List<ResumenAemet> porTramo = IntStream.range(0, numeroTramos(desde, hasta)).parallel()
+                .mapToObj(tramo -> agregarTramo(datos, desde, hasta, tramo))
+                .toList();
+        ResumenAemet resumen = porTramo.get(0);
+        for (int tramo = 1; tramo < porTramo.size(); tramo++) {
+            resumen.absorber(porTramo.get(tramo));
+        }
+        return resumen;
+    }
+
+    private static int numeroTramos(int desde, int hasta) {
+        return Math.max(1, (int) (((long) hasta - desde + TAMANO_TRAMO - 1) / TAMANO_TRAMO));
+    }
+
+    private static ResumenAemet agregarTramo(AemetColumnStore datos, int desde, int hasta, int tramo) {
+        ResumenAemet resumen = new ResumenAemet(datos);
+        int inicio = desde + tramo * TAMANO_TRAMO;
+        int fin = (int) Math.min(hasta, (long) inicio + TAMANO_TRAMO);
+        for (int fila = inicio; fila < fin; fila++) {
+            resumen.anadir(fila);
+        }
+        return resumen;
+    }
+}
@@ -0,0 +1,229 @@
+package dev.services;
+
+import dev.models.Aemet;
+import dev.models.AemetColumnStore;
+import dev.models.Estacion;
+import dev.utils.StringDictionary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Esta clase lee los CSV de AEMET en una sola pasada directamente desde un FileChannel.
+ * Decodifica Windows-1252 al vuelo y separa los campos por ';' sin generar ningun fichero intermedio.
+ * Los campos numericos se convierten con {@link AemetFieldParser}, sin subcadenas ni formateadores.
+ */
+public class AemetCsvReader {
+    private static final Logger logger = LoggerFactory.getLogger(AemetCsvReader.class);
+    private static final Charset WINDOWS_1252 = Charset.forName("Windows-1252");
+    private static final int TAMANO_BUFFER = 1 << 16;
+    private static final int NUMERO_CAMPOS = 7;
+
+    // Windows-1252 es un juego de un byte, asi que cada byte se decodifica con una tabla de 256 caracteres.
+    private static final char[] TABLA_WINDOWS_1252 = crearTabla();
+
+    private AemetCsvReader() {
+    }
+
+    /**
+     * Lee un fichero CSV de AEMET y entrega cada medicion valida al consumidor.
+     *
+     * @param fichero    La ruta del fichero CSV en formato Windows-1252.
+     * @param dia        El dia al que pertenecen las mediciones del fichero.
+     * @param consumidor El consumidor que recibe cada objeto Aemet leido.
+     * @return El numero de mediciones leidas.
+     * @throws IOException Si se produce un error durante la lectura del fichero.
+     */
+    public static int leer(Path fichero, LocalDate dia, Consumer<Aemet> consumidor) throws IOException {
+        EstacionRegistry registro = EstacionRegistry.getInstance();
+        return recorrer(fichero, linea -> {
+            // La localidad y la provincia se toman de la estacion compartida, no de las cadenas de la linea.
+            Estacion estacion = registro.obtener(linea.texto(0), linea.texto(1));
+            consumidor.accept(Aemet.builder()
+                    .localidad(estacion.getLocalidad())
+                    .provincia(estacion.getProvincia())
+                    .temperaturaMax(linea.temperaturaMax)
+                    .horaTemperaturaMax(LocalTime.ofSecondOfDay(linea.horaTemperaturaMax * 60L))
+                    .temperaturaMin(linea.temperaturaMin)
+                    .horaTemperaturaMin(LocalTime.ofSecondOfDay(linea.horaTemperaturaMin * 60L))
+                    .precipitacion(linea.precipitacion)
+                    .dia(dia)
+                    .build());
+        });
+    }
+
+    /**
+     * Lee un fichero CSV de AEMET y añade cada medicion valida al final de un almacen por columnas.
+     * Los campos se convierten directamente a primitivos y las localidades y provincias se buscan en los
+     * diccionarios del almacen sin crear cadenas, por lo que solo se reserva memoria para los nombres nuevos.
+     *
+     * @param fichero La ruta del fichero CSV en formato Windows-1252.
+     * @param dia     El dia al que pertenecen las mediciones del fichero.
+     * @param destino El almacen al que se añaden las mediciones.
+     * @return El numero de mediciones leidas.
+     * @throws IOException Si se produce un error durante la lectura del fichero.
+     */
+    public static int leer(Path fichero, LocalDate dia, AemetColumnStore destino) throws IOException {
+        int diaEpoch = (int) dia.toEpochDay();
+        StringDictionary localidades = destino.getLocalidades();
+        StringDictionary provincias = destino.getProvincias();
+        return recorrer(fichero, linea -> destino.anadir(
+                localidades.codificar(linea.caracteres, linea.inicio(0), linea.fin(0)),
+                provincias.codificar(linea.caracteres, linea.inicio(1), linea.fin(1)),
+                linea.temperaturaMax, linea.horaTemperaturaMax,
+                linea.temperaturaMin, linea.horaTemperaturaMin,
+                linea.precipitacion, diaEpoch));
+    }
+
+    /**
+     * Recorre las lineas de un fichero y entrega al receptor cada una que sea valida, ya convertida.
+     * El receptor siempre recibe el mismo objeto Linea, que se reutiliza para la siguiente linea.
+     * Al terminar registra en {@link AemetMetrics} el ritmo de lectura y las lineas rechazadas por cada motivo.
+     */
+    private static int recorrer(Path fichero, Consumer<Linea> receptor) throws IOException {
+        Linea linea = new Linea();
+        int leidas = 0;
+        int porCampos = 0;
+        int porFormato = 0;
+        long bytesLeidos = 0;
+        long inicio = System.nanoTime();
+
+        try (FileChannel canal = FileChannel.open(fichero, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(TAMANO_BUFFER);
+            byte[] bytes = buffer.array();
+            int n;
+            while ((n = canal.read(buffer)) != -1) {
+                bytesLeidos += n;
+                for (int i = 0; i < n; i++) {
+                    byte b = bytes[i];
+                    if (b == '\n') {
+                        if (linea.convertir()) {
+                            receptor.accept(linea);
+                            leidas++;
+                        } else if (linea.longitud > 0) {
+                            if (linea.pocosCampos()) {
+                                porCampos++;
+                            } else {
+                                porFormato++;
+                            }
+                        }
+                        linea.vaciar();
+                    } else if (b != '\r') {
+                        linea.anadir(b);
+                    }
+                }
+                buffer.clear();
+            }
+            // Ultima linea sin salto de linea final.
+            if (linea.longitud > 0) {
+                if (linea.convertir()) {
+                    receptor.accept(linea);
+                    leidas++;
+                } else if (linea.pocosCampos()) {
+                    porCampos++;
+                } else {
+                    porFormato++;
+                }
+            }
+        }
+
+        AemetMetrics.getInstance().registrarFichero(fichero, leidas, porCampos, porFormato, bytesLeidos, System.nanoTime() - inicio);
+        if (porCampos + porFormato > 0) {
+            logger.debug("Lineas rechazadas en " + fichero.getFileName() + ": " + porCampos + " con menos de "
+                    + NUMERO_CAMPOS + " campos y " + porFormato + " con campos no validos");
+        }
+        return leidas;
+    }
+
+    /**
+     * Una linea del fichero ya decodificada, con las posiciones de sus separadores y sus campos numericos
+     * convertidos. Se reutiliza para todas las lineas de un fichero.
+     */
+    private static final class Linea {
+        private char[] caracteres = new char[256];
+        private final int[] separadores = new int[NUMERO_CAMPOS];
+        private int longitud;
+        private int campos;
+        private double temperaturaMax;
+        private int horaTemperaturaMax;
+        private double temperaturaMin;
+        private int horaTemperaturaMin;
+        private double precipitacion;
+
+        private void anadir(byte b) {
+            if (longitud == caracteres.length) {
+                caracteres = Arrays.copyOf(caracteres, longitud * 2);
+            }
+            if (b == ';' && campos < NUMERO_CAMPOS) {
+                separadores[campos++] = longitud;
+            }
+            caracteres[longitud++] = TABLA_WINDOWS_1252[b & 0xFF];
+        }
+
+        private void vaciar() {
+            longitud = 0;
+            campos = 0;
+        }
+
+        private int inicio(int campo) {
+            return campo == 0 ? 0 : separadores[campo - 1] + 1;
+        }
+
+        private int fin(int campo) {
+            return campo < campos ? separadores[campo] : longitud;
+        }
+
+        private String texto(int campo) {
+            return new String(caracteres, inicio(campo), fin(campo) - inicio(campo));
+        }
+
+        /**
+         * Indica si a la linea le faltan campos, para distinguir ese rechazo de un campo con formato no valido.
+         */
+        private boolean pocosCampos() {
+            // Siete campos necesitan seis separadores.
+            return campos < NUMERO_CAMPOS - 1;
+        }
+
+        /**
+         * Convierte los campos numericos de la linea.
+         *
+         * @return `true` si la linea tiene los siete campos y todos son validos.
+         */
+        private boolean convertir() {
+            if (pocosCampos()) {
+                return false;
+            }
+            temperaturaMax = AemetFieldParser.decimal(caracteres, inicio(2), fin(2));
+            horaTemperaturaMax = AemetFieldParser.minutoDelDia(caracteres, inicio(3), fin(3));
+            temperaturaMin = AemetFieldParser.decimal(caracteres, inicio(4), fin(4));
+            horaTemperaturaMin = AemetFieldParser.minutoDelDia(caracteres, inicio(5), fin(5));
+            precipitacion = AemetFieldParser.decimal(caracteres, inicio(6), fin(6));
+            if (Double.isNaN(temperaturaMax) || Double.isNaN(temperaturaMin) || Double.isNaN(precipitacion)
+                    || horaTemperaturaMax == AemetFieldParser.HORA_NO_VALIDA
+                    || horaTemperaturaMin == AemetFieldParser.HORA_NO_VALIDA) {
+                logger.debug("Linea no valida: " + new String(caracteres, 0, longitud));
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private static char[] crearTabla() {
+        byte[] todos = new byte[256];
+        for (int i = 0; i < todos.length; i++) {
+            todos[i] = (byte) i;
+        }
+        return new String(todos, WINDOWS_1252).toCharArray();
+    }
+}
@@ -0,0 +1,149 @@
+package dev.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Esta clase vigila un directorio con un WatchService y avisa de los ficheros nuevos o modificados cuyo nombre
+ * cumple un patron. Los eventos se agrupan hasta que el directorio pasa un rato sin cambios, de modo que un fichero
+ * que se escribe en varios trozos se entrega una sola vez y ya completo.
+ * La vigilancia se hace en un hilo demonio propio y termina al cerrar el vigilante.
+ */
+public class AemetDirectoryWatcher implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(AemetDirectoryWatcher.class);
+    private static final long ESPERA_SIN_CAMBIOS_MS = 500;
+
+    private final Path directorio;
+    private final Pattern patron;
+    private final Consumer<List<Path>> alCambiar;
+    private final WatchService watchService;
+    private final Thread hilo;
+
+    /**
+     * Crea un vigilante de un directorio. No empieza a vigilar hasta llamar a {@link #iniciar()}.
+     *
+     * @param directorio El directorio que se desea vigilar.
+     * @param patron     El patron que deben cumplir los nombres de los ficheros.
+     * @param alCambiar  La accion que recibe, ordenados por nombre, los ficheros nuevos o modificados de cada grupo de cambios.
+     * @throws IOException Si no se puede registrar el directorio en el WatchService.
+     */
+    public AemetDirectoryWatcher(Path directorio, Pattern patron, Consumer<List<Path>> alCambiar) throws IOException {
+        this.directorio = directorio;
+        this.patron = patron;
+        this.alCambiar = alCambiar;
+        this.watchService = directorio.getFileSystem().newWatchService();
+        directorio.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        this.hilo = new Thread(this::vigilar, "aemet-watcher");
+        this.hilo.setDaemon(true);
+    }
+
+    /**
+     * Empieza a vigilar el directorio en segundo plano.
+     */
+    public void iniciar() {
+        hilo.start();
+        logger.debug("Vigilando " + directorio);
+    }
+
+    /**
+     * Deja de vigilar el directorio y espera a que termine el hilo de vigilancia.
+     *
+     * @throws IOException Si ocurre un error al cerrar el WatchService.
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        hilo.interrupt();
+        try {
+            hilo.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void vigilar() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Set<String> cambiados = new TreeSet<>();
+                WatchKey clave = watchService.take();
+                // Se siguen recogiendo eventos hasta que pasa un rato sin ninguno.
+                while (clave != null) {
+                    if (recoger(clave, cambiados)) {
+                        listarTodos(cambiados);
+                    }
+                    if (!clave.reset()) {
+                        logger.error("El directorio " + directorio + " ya no se puede vigilar");
+                        return;
+                    }
+                    clave = watchService.poll(ESPERA_SIN_CAMBIOS_MS, TimeUnit.MILLISECONDS);
+                }
+                if (!cambiados.isEmpty()) {
+                    entregar(cambiados);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            logger.debug("Vigilancia de " + directorio + " terminada");
+        }
+    }
+
+    /**
+     * Añade los ficheros de los eventos de una clave que cumplen el patron.
+     *
+     * @return `true` si se perdieron eventos y hay que revisar todo el directorio.
+     */
+    private boolean recoger(WatchKey clave, Set<String> cambiados) {
+        boolean desbordado = false;
+        for (WatchEvent<?> evento : clave.pollEvents()) {
+            if (evento.kind() == StandardWatchEventKinds.OVERFLOW) {
+                desbordado = true;
+            } else if (evento.context() instanceof Path fichero) {
+                String nombre = fichero.getFileName().toString();
+                if (patron.matcher(nombre).matches()) {
+                    cambiados.add(nombre);
+                }
+            }
+        }
+        return desbordado;
+    }
+
+    private void listarTodos(Set<String> cambiados) {
+        try (Stream<Path> ficheros = Files.list(directorio)) {
+            ficheros.map(fichero -> fichero.getFileName().toString())
+                    .filter(nombre -> patron.matcher(nombre).matches())
+                    .forEach(cambiados::add);
+        } catch (IOException e) {
+            logger.error("No se pudo listar " + directorio + ": " + e.getMessage());
+        }
+    }
+
+    private void entregar(Set<String> cambiados) {
+        List<Path> ficheros = new ArrayList<>(cambiados.size());
+        for (String nombre : cambiados) {
+            Path fichero = directorio.resolve(nombre);
+            if (Files.isRegularFile(fichero)) {
+                ficheros.add(fichero);
+            }
+        }
+        if (ficheros.isEmpty()) {
+            return;
+        }
+        logger.debug("Ficheros nuevos o modificados: " + ficheros);
+        try {
+            alCambiar.accept(ficheros);
+        } catch (RuntimeException e) {
+            // Un fallo al procesar un grupo de cambios no debe parar la vigilancia.
+            logger.error("Error procesando " + ficheros + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package dev.services;
+
+/**
+ * Esta clase convierte los campos numericos de una linea de AEMET directamente a tipos primitivos.
+ * Trabaja sobre un rango de un array de caracteres, ignora los espacios de alrededor (como en "18.3 ")
+ * y no crea ningun objeto: un campo no valido se indica con un valor especial en lugar de una excepcion.
+ * Los decimales aceptan lo mismo que {@link Double#parseDouble(String)}: los que no son de la forma habitual
+ * (con exponente, tabuladores alrededor, etc.) se delegan en el JDK.
+ */
+public final class AemetFieldParser {
+    /**
+     * Valor devuelto por {@link #minutoDelDia(char[], int, int)} si el campo no es una hora valida.
+     */
+    public static final int HORA_NO_VALIDA = -1;
+
+    // Con mantisa y potencia de diez exactas en double, una sola division da el double mas cercano al decimal,
+    // igual que Double.parseDouble.
+    private static final long MANTISA_MAXIMA = 1L << 53;
+    private static final double[] POTENCIAS_10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private AemetFieldParser() {
+    }
+
+    /**
+     * Convierte un numero decimal como "18.3", "-2" o " 0.25 " en un double. Los campos con otros caracteres,
+     * como "1e-1" o "\t12.5", se convierten con {@link Double#parseDouble(String)}.
+     *
+     * @param texto  El array que contiene el campo.
+     * @param inicio La posicion del primer caracter del campo, incluida.
+     * @param fin    La posicion del ultimo caracter del campo, excluida.
+     * @return El valor del campo, o {@link Double#NaN} si no es un numero decimal valido.
+     */
+    public static double decimal(char[] texto, int inicio, int fin) {
+        int inicioCampo = inicio;
+        int finCampo = fin;
+        while (inicio < fin && texto[inicio] == ' ') {
+            inicio++;
+        }
+        while (fin > inicio && texto[fin - 1] == ' ') {
+            fin--;
+        }
+        boolean negativo = false;
+        if (inicio < fin && (texto[inicio] == '-' || texto[inicio] == '+')) {
+            negativo = texto[inicio] == '-';
+            inicio++;
+        }
+
+        long mantisa = 0;
+        int decimales = 0;
+        int digitos = 0;
+        boolean punto = false;
+        for (int i = inicio; i < fin; i++) {
+            char c = texto[i];
+            if (c >= '0' && c <= '9') {
+                mantisa = mantisa * 10 + (c - '0');
+                digitos++;
+                if (punto) {
+                    decimales++;
+                }
+                if (mantisa >= MANTISA_MAXIMA) {
+                    // Demasiados digitos para hacerlo de forma exacta; caso excepcional que se delega en el JDK.
+                    return decimalLento(texto, inicioCampo, finCampo);
+                }
+            } else if (c == '.' && !punto) {
+                punto = true;
+            } else {
+                // Exponente, tabulador u otro caracter fuera de la forma habitual: decide el JDK.
+                return decimalLento(texto, inicioCampo, finCampo);
+            }
+        }
+        if (digitos == 0) {
+            return Double.NaN;
+        }
+        if (decimales >= POTENCIAS_10.length) {
+            return decimalLento(texto, inicioCampo, finCampo);
+        }
+        double valor = mantisa / POTENCIAS_10[decimales];
+        return negativo ? -valor : valor;
+    }
+
+    /**
+     * Convierte una hora "H:mm" o "HH:mm", con posibles espacios alrededor, en el minuto del dia.
+     *
+     * @param texto  El array que contiene el campo.
+     * @param inicio La posicion del primer caracter del campo, incluida.
+     * @param fin    La posicion del ultimo caracter del campo, excluida.
+     * @return El minuto del dia (0 a 1439), o {@link #HORA_NO_VALIDA} si el campo no es una hora valida.
+     */
+    public static int minutoDelDia(char[] texto, int inicio, int fin) {
+        while (inicio < fin && texto[inicio] == ' ') {
+            inicio++;
+        }
+        while (fin > inicio && texto[fin - 1] == ' ') {
+            fin--;
+        }
+        int longitud = fin - inicio;
+        if ((longitud != 4 && longitud != 5) || texto[fin - 3] != ':') {
+            return HORA_NO_VALIDA;
+        }
+        int horas = digito(texto[inicio]);
+        if (longitud == 5) {
+            horas = horas * 10 + digito(texto[inicio + 1]);
+        }
+        int decenas = digito(texto[fin - 2]);
+        int unidades = digito(texto[fin - 1]);
+        if (horas < 0 || horas > 23 || decenas < 0 || decenas > 5 || unidades < 0) {
+            return HORA_NO_VALIDA;
+        }
+        return horas * 60 + decenas * 10 + unidades;
+    }
+
+    /**
+     * Devuelve el valor de un digito, o un numero muy negativo si el caracter no es un digito,
+     * de modo que cualquier cuenta en la que participe quede fuera de rango.
+     */
+    private static int digito(char c) {
+        return c >= '0' && c <= '9' ? c - '0' : -1000;
+    }
+
+    /**
+     * Convierte el campo completo con {@link Double#parseDouble(String)}, que ya trata el signo y los espacios.
+     */
+    private static double decimalLento(char[] texto, int inicio, int fin) {
+        try {
+            return Double.parseDouble(new String(texto, inicio, fin - inicio));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package dev.services;
+
+import dev.utils.LatencyHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Esta clase reune las metricas de la aplicacion: el ritmo de lectura de los CSV y las lineas rechazadas, las
+ * conexiones abiertas y reutilizadas del pool, y un histograma de latencias por cada operacion medida.
+ * Los contadores se publican por JMX en el dominio "dev.aemet", de modo que se pueden consultar con JConsole o
+ * VisualVM, y opcionalmente se vuelcan al log cada cierto tiempo con la propiedad del sistema
+ * "aemet.metricas.volcadoSegundos". Todos los metodos se pueden usar a la vez desde varios hilos.
+ */
+public class AemetMetrics implements AemetMetricsMBean {
+    private static final Logger logger = LoggerFactory.getLogger(AemetMetrics.class);
+    private static final String DOMINIO = "dev.aemet";
+    private static final AemetMetrics instance = new AemetMetrics();
+
+    private final LongAdder ficherosLeidos = new LongAdder();
+    private final LongAdder filasLeidas = new LongAdder();
+    private final LongAdder bytesLeidos = new LongAdder();
+    private final LongAdder nanosLectura = new LongAdder();
+    private final LongAdder lineasPorCampos = new LongAdder();
+    private final LongAdder lineasPorFormato = new LongAdder();
+    private final LongAdder erroresLectura = new LongAdder();
+    private final LongAdder conexionesAbiertas = new LongAdder();
+    private final LongAdder conexionesReutilizadas = new LongAdder();
+    private volatile Ritmo ultimoFichero;
+
+    private final Map<String, LatencyHistogram> latencias = new ConcurrentHashMap<>();
+    private ScheduledExecutorService volcado;
+
+    private AemetMetrics() {
+        publicar("type=Metricas", this);
+        long segundos = Long.getLong("aemet.metricas.volcadoSegundos", 0);
+        if (segundos > 0) {
+            iniciarVolcado(segundos, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Obtiene la instancia unica de las metricas.
+     *
+     * @return La instancia unica de AemetMetrics.
+     */
+    public static AemetMetrics getInstance() {
+        return instance;
+    }
+
+    /**
+     * Registra la lectura de un fichero CSV.
+     *
+     * @param fichero     La ruta del fichero.
+     * @param filas       El numero de mediciones validas leidas.
+     * @param porCampos   El numero de lineas rechazadas por tener menos de siete campos.
+     * @param porFormato  El numero de lineas rechazadas por tener algun campo numerico o de hora no valido.
+     * @param bytes       El numero de bytes leidos.
+     * @param nanos       El tiempo de lectura en nanosegundos.
+     */
+    public void registrarFichero(Path fichero, int filas, int porCampos, int porFormato, long bytes, long nanos) {
+        ficherosLeidos.increment();
+        filasLeidas.add(filas);
+        bytesLeidos.add(bytes);
+        nanosLectura.add(nanos);
+        lineasPorCampos.add(porCampos);
+        lineasPorFormato.add(porFormato);
+        ultimoFichero = new Ritmo(String.valueOf(fichero.getFileName()), porSegundo(filas, nanos), porSegundo(bytes, nanos));
+    }
+
+    /**
+     * Registra un fichero que no se ha podido leer.
+     */
+    public void registrarErrorLectura() {
+        erroresLectura.increment();
+    }
+
+    /**
+     * Registra la apertura de una conexion fisica con la base de datos.
+     */
+    public void registrarConexionAbierta() {
+        conexionesAbiertas.increment();
+    }
+
+    /**
+     * Registra el prestamo de una conexion ya abierta del pool y el tiempo que se espero a que quedara libre.
+     *
+     * @param esperaNanos La espera en nanosegundos.
+     */
+    public void registrarConexionReutilizada(long esperaNanos) {
+        conexionesReutilizadas.increment();
+        latencia("pool.espera").registrar(esperaNanos);
+    }
+
+    /**
+     * Obtiene el histograma de latencias de una operacion, creandolo y publicandolo por JMX la primera vez.
+     *
+     * @param operacion El nombre de la operacion, por ejemplo "repositorio.save".
+     * @return El histograma de la operacion.
+     */
+    public LatencyHistogram latencia(String operacion) {
+        LatencyHistogram histograma = latencias.get(operacion);
+        if (histograma != null) {
+            return histograma;
+        }
+        return latencias.computeIfAbsent(operacion, nombre -> {
+            LatencyHistogram nuevo = new LatencyHistogram();
+            publicar("type=Latencia,name=" + nombre, nuevo);
+            return nuevo;
+        });
+    }
+
+    /**
+     * Ejecuta una operacion y registra su duracion en el histograma de su nombre, tanto si termina bien como si
+     * lanza una excepcion.
+     *
+     * @param operacion El nombre de la operacion, por ejemplo "repositorio.save".
+     * @param medida    La operacion que se mide.
+     * @param <T>       El tipo del resultado de la operacion.
+     * @param <E>       El tipo de la excepcion que puede lanzar la operacion.
+     * @return El resultado de la operacion.
+     * @throws E Si la operacion lanza la excepcion.
+     */
+    public <T, E extends Exception> T medir(String operacion, Medida<T, E> medida) throws E {
+        LatencyHistogram histograma = latencia(operacion);
+        long inicio = System.nanoTime();
+        try {
+            return medida.ejecutar();
+        } finally {
+            histograma.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    /**
+     * Vuelca todas las metricas al log cada cierto tiempo, en un hilo demonio. Sustituye a un volcado anterior.
+     *
+     * @param periodo El periodo entre volcados.
+     * @param unidad  La unidad del periodo.
+     */
+    public synchronized void iniciarVolcado(long periodo, TimeUnit unidad) {
+        detenerVolcado();
+        volcado = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "aemet-metricas");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        volcado.scheduleAtFixedRate(this::volcar, periodo, periodo, unidad);
+    }
+
+    /**
+     * Deja de volcar las metricas al log.
+     */
+    public synchronized void detenerVolcado() {
+        if (volcado != null) {
+            volcado.shutdown();
+            volcado = null;
+        }
+    }
+
+    /**
+     * Escribe todas las metricas en el log.
+     */
+    @Override
+    public void volcar() {
+        logger.info(String.format("Ingesta: %d ficheros, %d filas, %.0f filas/s, %.1f MB/s, rechazadas %d por campos y %d por formato, %d errores",
+                getFicherosLeidos(), getFilasLeidas(), getFilasPorSegundo(), getBytesPorSegundo() / (1 << 20),
+                getLineasRechazadasPorCampos(), getLineasRechazadasPorFormato(), getErroresLectura()));
+        logger.info("Conexiones: " + getConexionesAbiertas() + " abiertas, " + getConexionesReutilizadas() + " reutilizadas");
+        new TreeMap<>(latencias).forEach((operacion, histograma) -> logger.info("Latencia " + operacion + ": " + histograma));
+    }
+
+    @Override
+    public long getFicherosLeidos() {
+        return ficherosLeidos.sum();
+    }
+
+    @Override
+    public long getFilasLeidas() {
+        return filasLeidas.sum();
+    }
+
+    @Override
+    public long getBytesLeidos() {
+        return bytesLeidos.sum();
+    }
+
+    /**
+     * Los ficheros se leen en paralelo, asi que el ritmo se calcula sobre la suma de los tiempos de cada fichero:
+     * es el ritmo de un hilo lector, no el de la carga completa.
+     */
+    @Override
+    public double getFilasPorSegundo() {
+        return porSegundo(filasLeidas.sum(), nanosLectura.sum());
+    }
+
+    @Override
+    public double getBytesPorSegundo() {
+        return porSegundo(bytesLeidos.sum(), nanosLectura.sum());
+    }
+
+    @Override
+    public String getUltimoFichero() {
+        Ritmo ritmo = ultimoFichero;
+        return ritmo == null ? null : ritmo.fichero();
+    }
+
+    @Override
+    public double getUltimoFicheroFilasPorSegundo() {
+        Ritmo ritmo = ultimoFichero;
+        return ritmo == null ? 0 : ritmo.filasPorSegundo();
+    }
+
+    @Override
+    public double getUltimoFicheroBytesPorSegundo() {
+        Ritmo ritmo = ultimoFichero;
+        return ritmo == null ? 0 : ritmo.bytesPorSegundo();
+    }
+
+    @Override
+    public long getLineasRechazadasPorCampos() {
+        return lineasPorCampos.sum();
+    }
+
+    @Override
+    public long getLineasRechazadasPorFormato() {
+        return lineasPorFormato.sum();
+    }
+
+    @Override
+    public long getErroresLectura() {
+        return erroresLectura.sum();
+    }
+
+    @Override
+    public long getConexionesAbiertas() {
+        return conexionesAbiertas.sum();
+    }
+
+    @Override
+    public long getConexionesReutilizadas() {
+        return conexionesReutilizadas.sum();
+    }
+
+    private static double porSegundo(long cantidad, long nanos) {
+        return nanos == 0 ? 0 : cantidad * 1e9 / nanos;
+    }
+
+    /**
+     * Publica un MBean en el servidor de la plataforma. Si no se puede, por ejemplo porque el nombre ya existe en
+     * otro cargador de clases, las metricas se siguen registrando y solo se pierde su publicacion.
+     */
+    private static void publicar(String nombre, Object mbean) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(mbean, new ObjectName(DOMINIO + ":" + nombre));
+        } catch (JMException e) {
+            logger.warn("No se pudo publicar por JMX " + nombre + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * El ritmo de lectura del ultimo fichero, en un solo objeto para que sus tres valores sean coherentes.
+     */
+    private record Ritmo(String fichero, double filasPorSegundo, double bytesPorSegundo) {
+    }
+
+    /**
+     * Una operacion medida por {@link #medir(String, Medida)}, que puede lanzar una excepcion comprobada.
+     */
+    @FunctionalInterface
+    public interface Medida<T, E extends Exception> {
+        T ejecutar() throws E;
+    }
+}
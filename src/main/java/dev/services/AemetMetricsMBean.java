@@ -0,0 +1,35 @@
+package dev.services;
+
+/**
+ * Interfaz JMX de {@link AemetMetrics} con los contadores de ingesta y del pool de conexiones.
+ * Las latencias se publican aparte, un MBean por operacion.
+ */
+public interface AemetMetricsMBean {
+    long getFicherosLeidos();
+
+    long getFilasLeidas();
+
+    long getBytesLeidos();
+
+    double getFilasPorSegundo();
+
+    double getBytesPorSegundo();
+
+    String getUltimoFichero();
+
+    double getUltimoFicheroFilasPorSegundo();
+
+    double getUltimoFicheroBytesPorSegundo();
+
+    long getLineasRechazadasPorCampos();
+
+    long getLineasRechazadasPorFormato();
+
+    long getErroresLectura();
+
+    long getConexionesAbiertas();
+
+    long getConexionesReutilizadas();
+
+    void volcar();
+}
@@ -0,0 +1,113 @@
+package dev.services;
+
+import dev.models.*;
+import dev.utils.TopK;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Esta clase calcula rankings de mediciones (las K mas calurosas, frias, lluviosas o con mayor amplitud termica)
+ * en un solo recorrido del almacen. Cada grupo del ranking guarda solo sus K mejores filas en un {@link TopK},
+ * asi que la memoria es O(K) por grupo sea cual sea el numero de mediciones.
+ * A igual valor queda antes la fila anterior del almacen.
+ */
+public class AemetRanking {
+
+    private AemetRanking() {
+    }
+
+    /**
+     * Calcula un ranking sobre una version de los datos.
+     * Si la consulta fija una provincia, solo se recorren sus filas mediante el indice por provincia y dia;
+     * si solo fija un rango de dias, solo se recorren las filas del rango mediante el indice por dia.
+     *
+     * @param version  La version de los datos.
+     * @param consulta La consulta de ranking.
+     * @return Los rankings de cada grupo, ordenados por provincia y dia; vacio si no hay mediciones que cumplan la consulta.
+     * @throws IllegalArgumentException Si la consulta conserva menos de una medicion por grupo.
+     */
+    public static List<GrupoRanking> calcular(DatosAemet version, ConsultaRanking consulta) {
+        if (consulta.getK() <= 0) {
+            throw new IllegalArgumentException("El ranking debe conservar al menos una medicion por grupo: " + consulta.getK());
+        }
+        AemetColumnStore datos = version.getDatos();
+        CriterioRanking criterio = consulta.getCriterio();
+        int desde = consulta.getDesde() == null ? Integer.MIN_VALUE : AemetColumnStore.diaEpoch(consulta.getDesde());
+        int hasta = consulta.getHasta() == null ? Integer.MAX_VALUE : AemetColumnStore.diaEpoch(consulta.getHasta());
+        Grupos grupos = new Grupos(consulta.getAgrupacion(), consulta.getK());
+
+        if (consulta.getProvincia() == null && consulta.getDesde() == null && consulta.getHasta() == null) {
+            for (int fila = 0; fila < datos.tamano(); fila++) {
+                grupos.de(datos.provincia(fila), datos.dia(fila)).ofrecer(fila, criterio.puntuacion(datos, fila));
+            }
+        } else if (consulta.getProvincia() == null) {
+            IndiceDias indice = version.getIndiceDias();
+            for (int posicion = indice.desde(desde), fin = indice.hasta(hasta); posicion < fin; posicion++) {
+                int fila = indice.fila(posicion);
+                grupos.de(datos.provincia(fila), datos.dia(fila)).ofrecer(fila, criterio.puntuacion(datos, fila));
+            }
+        } else {
+            int provincia = datos.getProvincias().buscar(consulta.getProvincia());
+            IndiceProvincias indice = version.getIndice();
+            if (provincia >= 0) {
+                for (int tramo = indice.primerTramo(provincia); tramo < indice.finTramos(provincia); tramo++) {
+                    int dia = indice.dia(tramo);
+                    if (dia < desde || dia > hasta) {
+                        continue;
+                    }
+                    TopK grupo = grupos.de(provincia, dia);
+                    for (int posicion = indice.inicio(tramo); posicion < indice.fin(tramo); posicion++) {
+                        int fila = indice.fila(posicion);
+                        grupo.ofrecer(fila, criterio.puntuacion(datos, fila));
+                    }
+                }
+            }
+        }
+        return grupos.resultado(datos, criterio);
+    }
+
+    /**
+     * Los K mejores de cada grupo, con la clave de {@link ResumenAemet#clave(int, int)}.
+     * Las filas de un mismo grupo suelen ir seguidas, asi que se recuerda el ultimo grupo usado.
+     */
+    private static final class Grupos {
+        private final boolean porProvincia;
+        private final boolean porDia;
+        private final int k;
+        private final Map<Long, TopK> grupos = new HashMap<>();
+        private long ultimaClave;
+        private TopK ultimo;
+
+        Grupos(AgrupacionRanking agrupacion, int k) {
+            this.porProvincia = agrupacion == AgrupacionRanking.PROVINCIA || agrupacion == AgrupacionRanking.PROVINCIA_DIA;
+            this.porDia = agrupacion == AgrupacionRanking.DIA || agrupacion == AgrupacionRanking.PROVINCIA_DIA;
+            this.k = k;
+        }
+
+        TopK de(int provincia, int dia) {
+            long clave = ResumenAemet.clave(porProvincia ? provincia : 0, porDia ? dia : 0);
+            if (ultimo == null || clave != ultimaClave) {
+                ultimo = grupos.computeIfAbsent(clave, c -> new TopK(k));
+                ultimaClave = clave;
+            }
+            return ultimo;
+        }
+
+        List<GrupoRanking> resultado(AemetColumnStore datos, CriterioRanking criterio) {
+            List<GrupoRanking> resultado = new ArrayList<>(grupos.size());
+            grupos.forEach((clave, mejores) -> {
+                String provincia = porProvincia ? datos.getProvincias().decodificar((int) (clave >>> 32)) : null;
+                LocalDate dia = porDia ? LocalDate.ofEpochDay((int) (long) clave) : null;
+                List<EntradaRanking> entradas = new ArrayList<>(mejores.tamano());
+                for (int fila : mejores.ordenados()) {
+                    entradas.add(new EntradaRanking(entradas.size() + 1, datos.fila(fila), criterio.valor(datos, fila)));
+                }
+                resultado.add(new GrupoRanking(provincia, dia, Collections.unmodifiableList(entradas)));
+            });
+            resultado.sort(Comparator.comparing(GrupoRanking::getProvincia, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+                    .thenComparing(GrupoRanking::getDia, Comparator.nullsFirst(Comparator.<LocalDate>naturalOrder())));
+            return Collections.unmodifiableList(resultado);
+        }
+    }
+}
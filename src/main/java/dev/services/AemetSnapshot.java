@@ -0,0 +1,172 @@
+package dev.services;
+
+import dev.models.AemetColumnStore;
+import dev.utils.StringDictionary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Esta clase guarda y recupera un almacen de mediciones en un fichero binario compacto, para no tener
+ * que volver a leer los CSV en cada arranque.
+ *
+ * <p>Formato (big-endian): cabecera "AEMS" y version; lista de ficheros CSV de origen con su tamaño y
+ * fecha de modificacion; diccionarios de localidades y provincias; numero de filas y un registro de
+ * ancho fijo ({@value #TAMANO_REGISTRO} bytes) por fila; y al final el CRC32 de todo lo anterior.</p>
+ */
+public class AemetSnapshot {
+    private static final Logger logger = LoggerFactory.getLogger(AemetSnapshot.class);
+    private static final int MAGIA = 0x41454D53; // "AEMS"
+    private static final int VERSION = 1;
+    private static final int TAMANO_REGISTRO = 4 + 4 + 8 + 2 + 8 + 2 + 8 + 4;
+
+    private AemetSnapshot() {
+    }
+
+    /**
+     * Escribe un almacen en un fichero de snapshot junto con la descripcion de los CSV de los que se cargo.
+     * El fichero se escribe primero en uno temporal y se mueve al final, para no dejar snapshots a medias.
+     *
+     * @param datos    El almacen de mediciones.
+     * @param ficheros Los ficheros CSV de los que se cargo el almacen.
+     * @param destino  La ruta del fichero de snapshot.
+     * @throws IOException Si ocurre un error al escribir el fichero.
+     */
+    public static void escribir(AemetColumnStore datos, List<Path> ficheros, Path destino) throws IOException {
+        Path temporal = destino.resolveSibling(destino.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (OutputStream fichero = Files.newOutputStream(temporal)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(fichero, crc), 1 << 16));
+            out.writeInt(MAGIA);
+            out.writeInt(VERSION);
+            out.writeInt(ficheros.size());
+            for (Path csv : ficheros) {
+                escribirCadena(out, csv.getFileName().toString());
+                out.writeLong(Files.size(csv));
+                out.writeLong(Files.getLastModifiedTime(csv).toMillis());
+            }
+            escribirDiccionario(out, datos.getLocalidades());
+            escribirDiccionario(out, datos.getProvincias());
+            out.writeInt(datos.tamano());
+            for (int fila = 0; fila < datos.tamano(); fila++) {
+                out.writeInt(datos.localidad(fila));
+                out.writeInt(datos.provincia(fila));
+                out.writeDouble(datos.temperaturaMax(fila));
+                out.writeShort(datos.horaTemperaturaMax(fila));
+                out.writeDouble(datos.temperaturaMin(fila));
+                out.writeShort(datos.horaTemperaturaMin(fila));
+                out.writeDouble(datos.precipitacion(fila));
+                out.writeInt(datos.dia(fila));
+            }
+            out.flush();
+            // El CRC se escribe fuera del flujo comprobado.
+            new DataOutputStream(fichero).writeLong(crc.getValue());
+        }
+        Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logger.debug("Snapshot escrito en " + destino + " con " + datos.tamano() + " mediciones");
+    }
+
+    /**
+     * Lee un fichero de snapshot proyectandolo en memoria, si sigue siendo valido para los CSV indicados:
+     * mismos ficheros, con el mismo tamaño y fecha de modificacion, y CRC32 correcto.
+     *
+     * @param origen   La ruta del fichero de snapshot.
+     * @param ficheros Los ficheros CSV que hay ahora en el directorio de datos.
+     * @return El almacen leido, o vacio si no hay snapshot o ya no corresponde a los CSV.
+     */
+    public static Optional<AemetColumnStore> leer(Path origen, List<Path> ficheros) {
+        if (!Files.isRegularFile(origen)) {
+            return Optional.empty();
+        }
+        try (FileChannel canal = FileChannel.open(origen, StandardOpenOption.READ)) {
+            long tamano = canal.size();
+            if (tamano < 8 || tamano > Integer.MAX_VALUE) {
+                return Optional.empty();
+            }
+            MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamano);
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate().limit((int) tamano - 8));
+            if (crc.getValue() != buffer.getLong((int) tamano - 8)) {
+                logger.debug("Snapshot descartado: checksum incorrecto");
+                return Optional.empty();
+            }
+
+            if (buffer.getInt() != MAGIA || buffer.getInt() != VERSION || !coincidenFicheros(buffer, ficheros)) {
+                logger.debug("Snapshot descartado: no corresponde a los CSV actuales");
+                return Optional.empty();
+            }
+
+            AemetColumnStore datos = new AemetColumnStore();
+            leerDiccionario(buffer, datos.getLocalidades());
+            leerDiccionario(buffer, datos.getProvincias());
+            int filas = buffer.getInt();
+            if (buffer.remaining() - 8 != (long) filas * TAMANO_REGISTRO) {
+                return Optional.empty();
+            }
+            for (int fila = 0; fila < filas; fila++) {
+                datos.anadir(buffer.getInt(), buffer.getInt(), buffer.getDouble(), buffer.getShort(),
+                        buffer.getDouble(), buffer.getShort(), buffer.getDouble(), buffer.getInt());
+            }
+            datos.compactar();
+            return Optional.of(datos);
+        } catch (IOException | BufferUnderflowException e) {
+            logger.debug("Snapshot descartado: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private static boolean coincidenFicheros(ByteBuffer buffer, List<Path> ficheros) throws IOException {
+        if (buffer.getInt() != ficheros.size()) {
+            return false;
+        }
+        for (Path csv : ficheros) {
+            if (!leerCadena(buffer).equals(csv.getFileName().toString())
+                    || buffer.getLong() != Files.size(csv)
+                    || buffer.getLong() != Files.getLastModifiedTime(csv).toMillis()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void escribirDiccionario(DataOutputStream out, StringDictionary diccionario) throws IOException {
+        out.writeInt(diccionario.tamano());
+        for (int codigo = 0; codigo < diccionario.tamano(); codigo++) {
+            escribirCadena(out, diccionario.decodificar(codigo));
+        }
+    }
+
+    private static void leerDiccionario(ByteBuffer buffer, StringDictionary diccionario) {
+        int tamano = buffer.getInt();
+        for (int codigo = 0; codigo < tamano; codigo++) {
+            diccionario.codificar(leerCadena(buffer));
+        }
+    }
+
+    private static void escribirCadena(DataOutputStream out, String cadena) throws IOException {
+        byte[] bytes = cadena.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String leerCadena(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -1,35 +1,73 @@
 package dev.services;
+import org.apache.ibatis.jdbc.RuntimeSqlException;
 import org.apache.ibatis.jdbc.ScriptRunner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Esta Clase gestiona la conexion y configuracion de la base de datos, incluida la inicializacion de tablas si es necesario.
  * Tambien proporciona metodos para ejecutar scripts SQL en la base de datos.
+ * Mantiene un pool fijo de conexiones reutilizables en modo WAL: una conexion de escritura y varias de lectura,
+ * de modo que varios hilos pueden consultar a la vez mientras otro escribe.
  */
 public class DatabaseManager implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseManager.class);
+    private static final long ESPERA_CONEXION_SEGUNDOS = 30;
+    /**
+     * Version actual del esquema. Cada version n mayor que 1 tiene su script "migracion_vn.sql".
+     */
+    public static final int VERSION_ESQUEMA = 4;
     private static DatabaseManager instance;
     private boolean databaseInitTables;
     private String databaseUrl;
     private String databaseInitScript;
-    private Connection conn;
+    private int databaseBatchSize;
+    private int databaseFetchSize;
+    private int databasePoolSize;
+    private int databaseStatementCacheSize;
+    private boolean cargaMasiva;
+    private PooledConnection escritor;
+    private final List<PooledConnection> lectores = new ArrayList<>();
+    private BlockingQueue<PooledConnection> escritorLibre;
+    private BlockingQueue<PooledConnection> lectoresLibres;
 
     /**
-     * Constructor privado que carga la configuracion de la base de datos y establece la conexion.
+     * Constructor privado que carga la configuracion de la base de datos y abre las conexiones del pool.
+     * Si no se puede abrir, inicializar o migrar la base de datos, cierra las conexiones que ya hubiera abierto
+     * y falla, en lugar de dejar un pool a medias.
+     *
+     * @throws IllegalStateException Si no se puede preparar la base de datos.
      */
     private DatabaseManager() {
         loadProperties();
         try {
-            openConnection();
+            // Los lectores se abren despues de crear o migrar las tablas para que partan del esquema definitivo.
+            openWriteConnection();
             if (databaseInitTables) {
                 initTables();
             }
-        } catch (SQLException e) {
-            e.getMessage();
+            migrarEsquema();
+            openReadConnections();
+        } catch (SQLException | FileNotFoundException e) {
+            logger.error("No se pudo preparar la base de datos " + databaseUrl + ": " + e.getMessage());
+            try {
+                closeConnection();
+            } catch (SQLException suprimida) {
+                e.addSuppressed(suprimida);
+            }
+            throw new IllegalStateException("No se pudo preparar la base de datos " + databaseUrl, e);
         }
     }
 
@@ -37,6 +75,7 @@ public class DatabaseManager implements AutoCloseable {
      * Obtiene una instancia unica de la clase DatabaseManager.
      *
      * @return instancia unica de DatabaseManager.
+     * @throws IllegalStateException Si no se puede preparar la base de datos; la siguiente llamada lo vuelve a intentar.
      */
 
     public static synchronized DatabaseManager getInstance() {
@@ -48,90 +87,275 @@ public class DatabaseManager implements AutoCloseable {
 
     /**
      * Carga la configuracion de la base de datos desde el archivo "config.properties".
+     * Una propiedad del sistema con el mismo nombre tiene prioridad sobre el archivo, lo que permite, por ejemplo,
+     * apuntar a otra base de datos con -Ddatabase.connectionUrl=jdbc:sqlite:/tmp/prueba.db.
      */
     private void loadProperties() {
-        try {
-            var file = ClassLoader.getSystemResource("config.properties").getFile();
-            var props = new Properties();
-            props.load(new FileReader(file));
-            databaseUrl = props.getProperty("database.connectionUrl", "jdbc:sqlite:Aemet.db");
-            databaseInitTables = Boolean.parseBoolean(props.getProperty("database.initTables", "false"));
-            databaseInitScript = props.getProperty("database.initScript", "init.sql");
+        var props = new Properties();
+        try (InputStream in = abrirRecurso("config.properties")) {
+            props.load(in);
         } catch (IOException e) {
             e.getMessage();
         }
+        props.putAll(System.getProperties());
+        databaseUrl = props.getProperty("database.connectionUrl", "jdbc:sqlite:Aemet.db");
+        databaseInitTables = Boolean.parseBoolean(props.getProperty("database.initTables", "false"));
+        databaseInitScript = props.getProperty("database.initScript", "init.sql");
+        databaseBatchSize = Integer.parseInt(props.getProperty("database.batchSize", "500"));
+        databaseFetchSize = Integer.parseInt(props.getProperty("database.fetchSize", "1000"));
+        databasePoolSize = Integer.parseInt(props.getProperty("database.poolSize", "4"));
+        databaseStatementCacheSize = Integer.parseInt(props.getProperty("database.statementCacheSize", "32"));
     }
 
     /**
-     * Abre una conexion con la base de datos.
+     * Abre un recurso del classpath. Se lee como flujo para que funcione tambien dentro de un jar.
+     *
+     * @param nombre El nombre del recurso.
+     * @return El flujo de lectura del recurso.
+     * @throws FileNotFoundException Si el recurso no existe.
+     */
+    private static InputStream abrirRecurso(String nombre) throws FileNotFoundException {
+        InputStream in = DatabaseManager.class.getClassLoader().getResourceAsStream(nombre);
+        if (in == null) {
+            throw new FileNotFoundException(nombre);
+        }
+        return in;
+    }
+
+    /**
+     * Abre la conexion de escritura del pool en modo WAL.
      *
      * @throws SQLException Si ocurre un error al abrir la conexion.
      */
-    private void openConnection() throws SQLException {
-        conn = DriverManager.getConnection(databaseUrl);
+    private void openWriteConnection() throws SQLException {
+        escritor = openConnection(false);
+        escritorLibre = new ArrayBlockingQueue<>(1);
+        escritorLibre.add(escritor);
     }
 
     /**
-     * Cierra la conexion con la base de datos.
+     * Abre las "database.poolSize" conexiones de lectura del pool en modo WAL.
      *
-     * @throws SQLException Si ocurre un error al cerrar la conexion.
+     * @throws SQLException Si ocurre un error al abrir alguna conexion.
+     */
+    private void openReadConnections() throws SQLException {
+        int numeroLectores = getPoolSize();
+        lectoresLibres = new ArrayBlockingQueue<>(numeroLectores);
+        for (int i = 0; i < numeroLectores; i++) {
+            PooledConnection lector = openConnection(true);
+            lectores.add(lector);
+            lectoresLibres.add(lector);
+        }
+    }
+
+    /**
+     * Abre una conexion fisica con la base de datos y la configura para el pool.
+     *
+     * @param soloLectura Indica si la conexion solo se usara para consultas.
+     * @return La conexion del pool.
+     * @throws SQLException Si ocurre un error al abrir la conexion.
+     */
+    private PooledConnection openConnection(boolean soloLectura) throws SQLException {
+        Connection conn = DriverManager.getConnection(databaseUrl);
+        AemetMetrics.getInstance().registrarConexionAbierta();
+        try (var stmt = conn.createStatement()) {
+            // El modo WAL permite lectores concurrentes con un escritor y queda guardado en el fichero.
+            stmt.execute("PRAGMA journal_mode = WAL");
+            stmt.execute("PRAGMA synchronous = NORMAL");
+            stmt.execute("PRAGMA busy_timeout = 5000");
+            if (soloLectura) {
+                stmt.execute("PRAGMA query_only = ON");
+            }
+        }
+        return new PooledConnection(conn, databaseStatementCacheSize);
+    }
+
+    /**
+     * Cierra todas las conexiones del pool.
+     *
+     * @throws SQLException Si ocurre un error al cerrar alguna conexion.
      */
 
     private void closeConnection() throws SQLException {
-        conn.close();
+        if (escritor != null) {
+            escritor.cerrar();
+        }
+        for (PooledConnection lector : lectores) {
+            lector.cerrar();
+        }
     }
 
     /**
-     * Inicializa las tablas de la base de datos ejecutando el script de inicializacion.
+     * Activa o desactiva el modo de carga masiva, pensado para importaciones iniciales.
+     * En este modo la conexion de escritura no sincroniza el disco en cada transaccion, lo que acelera mucho
+     * las inserciones a cambio de no proteger las ultimas transacciones ante un corte de corriente.
+     * El diario se mantiene en modo WAL para no bloquear a los lectores.
+     *
+     * @param activar `true` para activar el modo de carga masiva, `false` para volver a los valores por defecto.
+     * @throws SQLException Si ocurre un error al aplicar la configuracion a la conexion de escritura o si no
+     *                      queda libre tras la espera maxima.
      */
-    private void initTables() {
-        try {
-            executeScript(databaseInitScript, true);
-        } catch (FileNotFoundException e) {
-            e.getMessage();
+    public synchronized void setCargaMasiva(boolean activar) throws SQLException {
+        // La conexion de escritura se toma prestada del pool para no cambiarla en mitad de la transaccion de otro hilo.
+        try (var connection = getWriteConnection();
+             var stmt = connection.createStatement()) {
+            stmt.execute(activar ? "PRAGMA synchronous = OFF" : "PRAGMA synchronous = NORMAL");
         }
+        cargaMasiva = activar;
+    }
+
+    /**
+     * Indica si el modo de carga masiva esta activo.
+     *
+     * @return `true` si el modo de carga masiva esta activo.
+     */
+    public boolean isCargaMasiva() {
+        return cargaMasiva;
+    }
+
+    /**
+     * Obtiene el numero de sentencias de cada lote en las inserciones masivas.
+     *
+     * @return El tamaño de lote configurado en "database.batchSize".
+     */
+    public int getBatchSize() {
+        return databaseBatchSize;
     }
 
+    /**
+     * Obtiene el numero de filas que se piden al driver en cada lectura de las consultas recorridas con cursor.
+     *
+     * @return El tamaño configurado en "database.fetchSize".
+     */
+    public int getFetchSize() {
+        return databaseFetchSize;
+    }
 
     /**
-     * Ejecuta un script SQL en la base de datos.
+     * Obtiene el numero de conexiones de lectura del pool, que es el maximo de consultas simultaneas.
+     *
+     * @return El tamaño configurado en "database.poolSize", al menos 1.
+     */
+    public int getPoolSize() {
+        return Math.max(1, databasePoolSize);
+    }
+
+    /**
+     * Inicializa las tablas de la base de datos ejecutando el script de inicializacion.
+     *
+     * @throws SQLException          Si falla alguna sentencia del script; en ese caso no se crea ninguna tabla.
+     * @throws FileNotFoundException Si no se encuentra el script de inicializacion.
+     */
+    private void initTables() throws SQLException, FileNotFoundException {
+        executeScript(databaseInitScript, true);
+    }
+
+
+    /**
+     * Actualiza en el sitio una base de datos creada con una version anterior del esquema, ejecutando
+     * en orden los scripts de migracion pendientes. La version se guarda en "PRAGMA user_version".
+     * Cada migracion se ejecuta en su propia transaccion; si una falla se deshace entera, la base de datos queda
+     * en la version anterior con todos sus datos y no se ejecutan las siguientes.
+     *
+     * @throws SQLException          Si ocurre un error al consultar la version del esquema o falla alguna migracion.
+     * @throws FileNotFoundException Si no se encuentra algun script de migracion.
+     */
+    private void migrarEsquema() throws SQLException, FileNotFoundException {
+        Connection conn = escritor.getFisica();
+        int version;
+        boolean existeTabla;
+        try (var stmt = conn.createStatement()) {
+            try (var rs = stmt.executeQuery("PRAGMA user_version")) {
+                version = rs.next() ? rs.getInt(1) : 0;
+            }
+            try (var rs = stmt.executeQuery("SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'Aemet'")) {
+                existeTabla = rs.next();
+            }
+        }
+        if (!existeTabla) {
+            return;
+        }
+        // Las tablas creadas antes de versionar el esquema tienen user_version 0 y equivalen a la version 1.
+        for (int siguiente = Math.max(version, 1) + 1; siguiente <= VERSION_ESQUEMA; siguiente++) {
+            executeScript("migracion_v" + siguiente + ".sql", true);
+        }
+    }
+
+    /**
+     * Ejecuta un script SQL en la base de datos en una sola transaccion. El script se detiene en la primera
+     * sentencia que falla y se deshace entero, asi que nunca queda aplicado a medias.
+     * La conexion de escritura se toma prestada del pool, de modo que el script espera a que termine la
+     * transaccion de otro hilo en lugar de mezclarse con ella.
      *
      * @param scriptSqlFile El nombre del archivo de script SQL a ejecutar.
      * @param logWriter     Indica si se debe registrar la salida del script.
+     * @throws SQLException          Si falla alguna sentencia del script o la conexion de escritura no queda
+     *                               libre tras la espera maxima.
      * @throws FileNotFoundException Si el archivo de script SQL no se encuentra.
      */
-    public void executeScript(String scriptSqlFile, boolean logWriter) throws FileNotFoundException {
-        ScriptRunner sr = new ScriptRunner(conn);
-        var file = ClassLoader.getSystemResource(scriptSqlFile).getFile();
-        Reader reader = new BufferedReader(new FileReader(file));
-        sr.runScript(reader);
+    public void executeScript(String scriptSqlFile, boolean logWriter) throws SQLException, FileNotFoundException {
+        Reader reader = new BufferedReader(new InputStreamReader(abrirRecurso(scriptSqlFile), StandardCharsets.UTF_8));
+        // Al devolverla, el pool restaura el autocommit que ScriptRunner desactiva.
+        try (reader; var conn = getWriteConnection()) {
+            ScriptRunner sr = new ScriptRunner(conn);
+            sr.setStopOnError(true);
+            sr.setAutoCommit(false);
+            // ScriptRunner confirma al terminar el script y deshace la transaccion si una sentencia falla.
+            sr.runScript(reader);
+        } catch (RuntimeSqlException e) {
+            throw new SQLException("Error al ejecutar el script " + scriptSqlFile + ": " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new SQLException("Error al cerrar el script " + scriptSqlFile, e);
+        }
     }
 
     /**
-     * Obtiene una conexion a la base de datos.
+     * Obtiene una conexion de lectura del pool. Al cerrarla se devuelve al pool.
+     * Puede usarse a la vez desde varios hilos, hasta "database.poolSize" conexiones simultaneas.
      *
-     * @return La conexion a la base de datos.
-     * @throws SQLException Si ocurre un error al obtener la conexion.
+     * @return Una conexion de solo lectura a la base de datos.
+     * @throws SQLException Si no hay ninguna conexion libre tras la espera maxima.
      */
     public Connection getConnection() throws SQLException {
-        if (conn == null || conn.isClosed()) {
-            try {
-                openConnection();
-            } catch (SQLException e) {
-                e.getMessage();
-                throw e;
+        return prestar(lectoresLibres);
+    }
+
+    /**
+     * Obtiene la conexion de escritura del pool. Al cerrarla se devuelve al pool.
+     * SQLite solo admite un escritor a la vez, asi que las escrituras concurrentes esperan su turno.
+     *
+     * @return La conexion de escritura a la base de datos.
+     * @throws SQLException Si la conexion no queda libre tras la espera maxima.
+     */
+    public Connection getWriteConnection() throws SQLException {
+        return prestar(escritorLibre);
+    }
+
+    /**
+     * Presta una conexion del pool y registra en {@link AemetMetrics} la reutilizacion y el tiempo de espera.
+     */
+    private Connection prestar(BlockingQueue<PooledConnection> libres) throws SQLException {
+        try {
+            long inicio = System.nanoTime();
+            PooledConnection conexion = libres.poll(ESPERA_CONEXION_SEGUNDOS, TimeUnit.SECONDS);
+            if (conexion == null) {
+                throw new SQLException("No hay conexiones libres en el pool");
             }
+            AemetMetrics.getInstance().registrarConexionReutilizada(System.nanoTime() - inicio);
+            return conexion.prestar(() -> libres.add(conexion));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido esperando una conexion del pool", e);
         }
-        return conn;
     }
 
     /**
-     * Implementacion del metodo close de la interfaz AutoCloseable para cerrar la conexion.
+     * Implementacion del metodo close de la interfaz AutoCloseable para cerrar las conexiones del pool.
      *
-     * @throws Exception Si ocurre un error al cerrar la conexion.
+     * @throws Exception Si ocurre un error al cerrar las conexiones.
      */
     @Override
     public void close() throws Exception {
         closeConnection();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,66 @@
+package dev.services;
+
+import dev.models.Estacion;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Esta clase es el registro de estaciones de la aplicacion: guarda una unica instancia de {@link Estacion}
+ * por cada par localidad y provincia, de modo que todas las mediciones de una estacion comparten el mismo
+ * objeto y las mismas cadenas. Se puede usar a la vez desde varios hilos.
+ */
+public class EstacionRegistry {
+    private static final EstacionRegistry instance = new EstacionRegistry();
+
+    /**
+     * Estaciones por provincia y localidad; con dos niveles, una busqueda no necesita crear una clave compuesta.
+     */
+    private final Map<String, Provincia> porProvincia = new ConcurrentHashMap<>();
+
+    private EstacionRegistry() {
+    }
+
+    /**
+     * Obtiene la instancia unica del registro de estaciones.
+     *
+     * @return La instancia unica de EstacionRegistry.
+     */
+    public static EstacionRegistry getInstance() {
+        return instance;
+    }
+
+    /**
+     * Obtiene la estacion de una localidad y una provincia, registrandola si es la primera vez que se pide.
+     *
+     * @param localidad El nombre de la localidad.
+     * @param provincia El nombre de la provincia.
+     * @return La instancia compartida de la estacion.
+     */
+    public Estacion obtener(String localidad, String provincia) {
+        Provincia grupo = porProvincia.computeIfAbsent(provincia, Provincia::new);
+        // Todas las estaciones de la provincia comparten la misma cadena con su nombre.
+        return grupo.estaciones.computeIfAbsent(localidad, l -> new Estacion(l, grupo.nombre));
+    }
+
+    /**
+     * Obtiene el numero de estaciones registradas.
+     *
+     * @return El numero de estaciones distintas.
+     */
+    public int tamano() {
+        return porProvincia.values().stream().mapToInt(grupo -> grupo.estaciones.size()).sum();
+    }
+
+    /**
+     * Las estaciones de una provincia, junto con la cadena compartida de su nombre.
+     */
+    private static final class Provincia {
+        private final String nombre;
+        private final Map<String, Estacion> estaciones = new ConcurrentHashMap<>();
+
+        private Provincia(String nombre) {
+            this.nombre = nombre;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package dev.services;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Esta clase representa una conexion fisica del pool de {@link DatabaseManager} junto con su cache de sentencias preparadas.
+ * Cada vez que se presta genera un proxy de Connection cuyo close() la devuelve al pool en lugar de cerrarla,
+ * y cuyas sentencias preparadas se reutilizan entre prestamos.
+ */
+class PooledConnection {
+    private final Connection fisica;
+    private final Map<String, PreparedStatement> cache;
+
+    /**
+     * Crea una conexion del pool con una cache LRU de sentencias preparadas.
+     *
+     * @param fisica       La conexion fisica con la base de datos.
+     * @param tamanoCache  El numero maximo de sentencias preparadas que se conservan.
+     */
+    PooledConnection(Connection fisica, int tamanoCache) {
+        this.fisica = fisica;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> mayor) {
+                if (size() > tamanoCache) {
+                    cerrarSilenciosamente(mayor.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Obtiene la conexion fisica.
+     *
+     * @return La conexion fisica con la base de datos.
+     */
+    Connection getFisica() {
+        return fisica;
+    }
+
+    /**
+     * Presta la conexion envuelta en un proxy. Al cerrar el proxy se cierran los ResultSet abiertos,
+     * se deshace cualquier transaccion pendiente y se llama a la accion de devolucion.
+     *
+     * @param devolver La accion que devuelve esta conexion al pool.
+     * @return El proxy de la conexion.
+     */
+    Connection prestar(Runnable devolver) {
+        Prestamo prestamo = new Prestamo(devolver);
+        prestamo.conexion = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, prestamo);
+        return prestamo.conexion;
+    }
+
+    /**
+     * Cierra las sentencias de la cache y la conexion fisica.
+     *
+     * @throws SQLException Si ocurre un error al cerrar la conexion.
+     */
+    void cerrar() throws SQLException {
+        cache.values().forEach(PooledConnection::cerrarSilenciosamente);
+        cache.clear();
+        fisica.close();
+    }
+
+    private PreparedStatement sentenciaEnCache(String sql, int clavesGeneradas) throws SQLException {
+        String clave = clavesGeneradas + ":" + sql;
+        PreparedStatement stmt = cache.get(clave);
+        if (stmt == null || stmt.isClosed()) {
+            stmt = fisica.prepareStatement(sql, clavesGeneradas);
+            cache.put(clave, stmt);
+        }
+        return stmt;
+    }
+
+    private static void cerrarSilenciosamente(AutoCloseable recurso) {
+        try {
+            recurso.close();
+        } catch (Exception e) {
+            e.getMessage();
+        }
+    }
+
+    /**
+     * Gestiona un prestamo de la conexion: intercepta close(), isClosed() y prepareStatement().
+     */
+    private class Prestamo implements InvocationHandler {
+        private final Runnable devolver;
+        private final List<ResultSet> abiertos = new ArrayList<>();
+        private Connection conexion;
+        private boolean cerrada;
+
+        Prestamo(Runnable devolver) {
+            this.devolver = devolver;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            String nombre = metodo.getName();
+            if (nombre.equals("close")) {
+                if (!cerrada) {
+                    cerrada = true;
+                    liberar();
+                }
+                return null;
+            }
+            if (nombre.equals("isClosed")) {
+                return cerrada || fisica.isClosed();
+            }
+            if (cerrada) {
+                throw new SQLException("La conexion ya se ha devuelto al pool");
+            }
+            if (nombre.equals("prepareStatement") && args.length <= 2 && (args.length == 1 || args[1] instanceof Integer)) {
+                int clavesGeneradas = args.length == 2 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS;
+                return envolver(sentenciaEnCache((String) args[0], clavesGeneradas));
+            }
+            try {
+                return metodo.invoke(fisica, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void liberar() {
+            abiertos.forEach(PooledConnection::cerrarSilenciosamente);
+            abiertos.clear();
+            try {
+                if (!fisica.getAutoCommit()) {
+                    fisica.rollback();
+                    fisica.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                e.getMessage();
+            }
+            devolver.run();
+        }
+
+        /**
+         * Envuelve una sentencia de la cache para que close() solo cierre los ResultSet que haya abierto
+         * y limpie sus parametros, conservando la sentencia preparada para el siguiente uso.
+         */
+        private PreparedStatement envolver(PreparedStatement stmt) {
+            List<ResultSet> propios = new ArrayList<>();
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (proxy, metodo, args) -> {
+                        switch (metodo.getName()) {
+                            case "close":
+                                propios.forEach(PooledConnection::cerrarSilenciosamente);
+                                abiertos.removeAll(propios);
+                                propios.clear();
+                                stmt.clearParameters();
+                                stmt.clearBatch();
+                                return null;
+                            case "getConnection":
+                                return conexion;
+                            default:
+                                try {
+                                    Object resultado = metodo.invoke(stmt, args);
+                                    if (resultado instanceof ResultSet rs) {
+                                        propios.add(rs);
+                                        abiertos.add(rs);
+                                    }
+                                    return resultado;
+                                } catch (InvocationTargetException e) {
+                                    throw e.getCause();
+                                }
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package dev.utils;
+
+import java.util.Arrays;
+
+/**
+ * Un contador aproximado de valores distintos de tipo HyperLogLog, con memoria fija y que se puede combinar.
+ * Cada valor se resume en un hash de 64 bits: los primeros bits eligen un registro y el resto, por el numero de
+ * ceros iniciales, indica lo improbable que es ese hash. Con 2^10 registros de un byte el error tipico es de en
+ * torno al 3 %, y para pocos valores se usa el conteo lineal, que es casi exacto.
+ * Los registros no se reservan hasta añadir el primer valor, asi que un contador vacio no ocupa nada.
+ */
+public class HyperLogLog {
+    private static final int PRECISION = 10;
+    private static final int REGISTROS = 1 << PRECISION;
+    private static final double ALFA = 0.7213 / (1 + 1.079 / REGISTROS);
+
+    private byte[] registros;
+
+    /**
+     * Añade una cadena. Se resume en un hash de 64 bits propio, no en {@link String#hashCode()}, cuyos 32 bits
+     * tienen colisiones que harian contar como una sola dos cadenas distintas.
+     *
+     * @param valor La cadena que se desea añadir.
+     */
+    public void anadir(String valor) {
+        anadirHash64(hash64(valor));
+    }
+
+    /**
+     * Combina otro contador con este: el resultado cuenta los valores distintos de los dos.
+     * El otro contador no se modifica.
+     *
+     * @param otro El contador que se desea combinar.
+     */
+    public void combinar(HyperLogLog otro) {
+        if (otro.registros == null) {
+            return;
+        }
+        if (registros == null) {
+            registros = otro.registros.clone();
+            return;
+        }
+        for (int i = 0; i < REGISTROS; i++) {
+            registros[i] = (byte) Math.max(registros[i], otro.registros[i]);
+        }
+    }
+
+    /**
+     * Estima el numero de valores distintos añadidos.
+     *
+     * @return El numero estimado de valores distintos.
+     */
+    public long estimar() {
+        if (registros == null) {
+            return 0;
+        }
+        double suma = 0;
+        int vacios = 0;
+        for (byte registro : registros) {
+            suma += 1.0 / (1L << registro);
+            if (registro == 0) {
+                vacios++;
+            }
+        }
+        double estimacion = ALFA * REGISTROS * REGISTROS / suma;
+        if (estimacion <= 2.5 * REGISTROS && vacios > 0) {
+            // Conteo lineal: con muchos registros vacios es mucho mas preciso.
+            estimacion = REGISTROS * Math.log((double) REGISTROS / vacios);
+        }
+        return Math.round(estimacion);
+    }
+
+    private void anadirHash64(long hash) {
+        if (registros == null) {
+            registros = new byte[REGISTROS];
+        }
+        int registro = (int) (hash >>> (64 - PRECISION));
+        // El bit de guarda limita el numero de ceros cuando el resto del hash es cero.
+        long resto = (hash << PRECISION) | (1L << (PRECISION - 1));
+        byte rango = (byte) (Long.numberOfLeadingZeros(resto) + 1);
+        if (rango > registros[registro]) {
+            registros[registro] = rango;
+        }
+    }
+
+    /**
+     * Calcula el hash FNV-1a de 64 bits de una cadena y reparte sus bits con el finalizador de SplitMix64,
+     * porque los registros se eligen con los bits altos y en FNV-1a son los que menos cambian.
+     */
+    private static long hash64(String valor) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < valor.length(); i++) {
+            hash = (hash ^ valor.charAt(i)) * 0x100000001B3L;
+        }
+        return mezclar(hash);
+    }
+
+    private static long mezclar(long hash) {
+        long z = hash;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    @Override
+    public String toString() {
+        return "HyperLogLog{" + estimar() + "}";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof HyperLogLog otro && Arrays.equals(registros, otro.registros);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(registros);
+    }
+}
@@ -0,0 +1,265 @@
+package dev.utils;
+
+import java.util.Arrays;
+
+/**
+ * Un resumen de cuantiles de tipo KLL (Karnin, Lang y Liberty) con memoria acotada y que se puede combinar.
+ * Los valores se guardan en niveles: cada valor del nivel h representa 2^h valores originales. Cuando un nivel
+ * se llena se ordena y se pasa al siguiente uno de cada dos valores, asi que con n valores el resumen guarda del
+ * orden de 3·k, sea cual sea n. Mientras caben todos los valores en el nivel 0 los cuantiles son exactos; despues
+ * el error de rango es de en torno al 1,7 % con k = 200.
+ * El valor que se conserva de cada pareja se alterna en lugar de sortearse, para que el resultado solo dependa de
+ * los valores y del orden en que se añaden y combinan.
+ */
+public class KllSketch {
+    /**
+     * El parametro k por defecto, que da un error de rango de en torno al 1,7 %.
+     */
+    public static final int K_POR_DEFECTO = 200;
+    private static final int CAPACIDAD_MINIMA = 8;
+
+    private final int k;
+    /**
+     * Los valores de cada nivel; solo las primeras {@link #tamanos} posiciones de cada uno son validas.
+     */
+    private double[][] niveles = new double[1][];
+    private int[] tamanos = new int[1];
+    /**
+     * El desplazamiento con el que se compacto cada nivel la ultima vez, alternando entre 0 y 1.
+     */
+    private boolean[] desplazamientos = new boolean[1];
+    /**
+     * La capacidad de cada nivel y su suma, que solo cambian al crearse un nivel nuevo.
+     */
+    private int[] capacidades;
+    private int capacidadTotal;
+    private int retenidos;
+    private long cuenta;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    /**
+     * Crea un resumen vacio con el parametro k por defecto.
+     */
+    public KllSketch() {
+        this(K_POR_DEFECTO);
+    }
+
+    /**
+     * Crea un resumen vacio.
+     *
+     * @param k El tamaño del nivel mas alto; a mayor k, menor error y mas memoria.
+     */
+    public KllSketch(int k) {
+        if (k < CAPACIDAD_MINIMA) {
+            throw new IllegalArgumentException("k debe ser al menos " + CAPACIDAD_MINIMA + ": " + k);
+        }
+        this.k = k;
+        this.niveles[0] = new double[CAPACIDAD_MINIMA];
+        calcularCapacidades();
+    }
+
+    /**
+     * Añade un valor al resumen. Los valores NaN se ignoran.
+     *
+     * @param valor El valor que se desea añadir.
+     */
+    public void anadir(double valor) {
+        if (Double.isNaN(valor)) {
+            return;
+        }
+        if (cuenta == 0) {
+            min = valor;
+            max = valor;
+        } else {
+            min = Math.min(min, valor);
+            max = Math.max(max, valor);
+        }
+        cuenta++;
+        insertar(0, valor);
+        if (retenidos >= capacidadTotal) {
+            comprimir();
+        }
+    }
+
+    /**
+     * Combina otro resumen con este. El otro resumen no se modifica.
+     *
+     * @param otro El resumen que se desea combinar.
+     */
+    public void combinar(KllSketch otro) {
+        if (otro.cuenta == 0) {
+            return;
+        }
+        if (cuenta == 0) {
+            min = otro.min;
+            max = otro.max;
+        } else {
+            min = Math.min(min, otro.min);
+            max = Math.max(max, otro.max);
+        }
+        cuenta += otro.cuenta;
+        for (int nivel = 0; nivel < otro.niveles.length; nivel++) {
+            for (int i = 0; i < otro.tamanos[nivel]; i++) {
+                insertar(nivel, otro.niveles[nivel][i]);
+            }
+        }
+        while (retenidos >= capacidadTotal) {
+            comprimir();
+        }
+    }
+
+    /**
+     * Estima un cuantil de los valores añadidos: el menor valor que deja por debajo o igual al menos esa
+     * fraccion de los valores.
+     *
+     * @param fraccion La fraccion, entre 0 y 1; por ejemplo 0.5 para la mediana o 0.95 para el percentil 95.
+     * @return El cuantil estimado, o NaN si el resumen esta vacio.
+     */
+    public double cuantil(double fraccion) {
+        return cuantiles(fraccion)[0];
+    }
+
+    /**
+     * Estima varios cuantiles de una vez, ordenando los valores guardados una sola vez.
+     *
+     * @param fracciones Las fracciones, entre 0 y 1.
+     * @return El cuantil estimado de cada fraccion, en el mismo orden, o NaN si el resumen esta vacio.
+     */
+    public double[] cuantiles(double... fracciones) {
+        double[] resultado = new double[fracciones.length];
+        for (double fraccion : fracciones) {
+            if (!(fraccion >= 0 && fraccion <= 1)) {
+                throw new IllegalArgumentException("La fraccion debe estar entre 0 y 1: " + fraccion);
+            }
+        }
+        if (cuenta == 0) {
+            Arrays.fill(resultado, Double.NaN);
+            return resultado;
+        }
+        // Cada nivel se ordena por separado y se mezclan en orden; el peso de un valor del nivel h es 2^h.
+        double[][] ordenados = new double[niveles.length][];
+        long pesoTotal = 0;
+        for (int nivel = 0; nivel < niveles.length; nivel++) {
+            ordenados[nivel] = Arrays.copyOf(niveles[nivel], tamanos[nivel]);
+            Arrays.sort(ordenados[nivel]);
+            pesoTotal += (long) tamanos[nivel] << nivel;
+        }
+        double[] valores = new double[retenidos];
+        long[] acumulados = new long[retenidos];
+        int[] siguiente = new int[niveles.length];
+        long acumulado = 0;
+        for (int i = 0; i < retenidos; i++) {
+            int menor = -1;
+            for (int nivel = 0; nivel < ordenados.length; nivel++) {
+                if (siguiente[nivel] < ordenados[nivel].length
+                        && (menor < 0 || ordenados[nivel][siguiente[nivel]] < ordenados[menor][siguiente[menor]])) {
+                    menor = nivel;
+                }
+            }
+            valores[i] = ordenados[menor][siguiente[menor]++];
+            acumulado += 1L << menor;
+            acumulados[i] = acumulado;
+        }
+
+        for (int j = 0; j < fracciones.length; j++) {
+            double fraccion = fracciones[j];
+            if (fraccion == 0) {
+                resultado[j] = min;
+            } else if (fraccion == 1) {
+                resultado[j] = max;
+            } else {
+                // Primer valor cuyo peso acumulado alcanza la fraccion pedida.
+                long objetivo = (long) Math.ceil(fraccion * pesoTotal);
+                int posicion = Arrays.binarySearch(acumulados, objetivo);
+                resultado[j] = valores[posicion >= 0 ? posicion : -posicion - 1];
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Obtiene el numero de valores añadidos, incluidos los de los resumenes combinados.
+     *
+     * @return El numero de valores.
+     */
+    public long getCuenta() {
+        return cuenta;
+    }
+
+    /**
+     * Obtiene el numero de valores que guarda el resumen, que es lo que determina su memoria.
+     *
+     * @return El numero de valores guardados.
+     */
+    public int getRetenidos() {
+        return retenidos;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    private void insertar(int nivel, double valor) {
+        while (nivel >= niveles.length) {
+            int numero = niveles.length + 1;
+            niveles = Arrays.copyOf(niveles, numero);
+            tamanos = Arrays.copyOf(tamanos, numero);
+            desplazamientos = Arrays.copyOf(desplazamientos, numero);
+            niveles[numero - 1] = new double[CAPACIDAD_MINIMA];
+            calcularCapacidades();
+        }
+        if (tamanos[nivel] == niveles[nivel].length) {
+            niveles[nivel] = Arrays.copyOf(niveles[nivel], niveles[nivel].length * 2);
+        }
+        niveles[nivel][tamanos[nivel]++] = valor;
+        retenidos++;
+    }
+
+    /**
+     * La capacidad de un nivel es k para el mas alto y un tercio menos por cada nivel que se baja, con un minimo.
+     */
+    private void calcularCapacidades() {
+        capacidades = new int[niveles.length];
+        capacidadTotal = 0;
+        for (int nivel = 0; nivel < niveles.length; nivel++) {
+            int profundidad = niveles.length - 1 - nivel;
+            capacidades[nivel] = Math.max(CAPACIDAD_MINIMA, (int) Math.ceil(k * Math.pow(2.0 / 3.0, profundidad)));
+            capacidadTotal += capacidades[nivel];
+        }
+    }
+
+    /**
+     * Compacta el nivel mas bajo que esta lleno: lo ordena y pasa al siguiente uno de cada dos valores.
+     * Si tiene un numero impar de valores, el ultimo se queda en el nivel.
+     */
+    private void comprimir() {
+        for (int nivel = 0; nivel < niveles.length; nivel++) {
+            if (tamanos[nivel] >= capacidades[nivel]) {
+                double[] valores = niveles[nivel];
+                int tamano = tamanos[nivel];
+                int pares = tamano & ~1;
+                Arrays.sort(valores, 0, tamano);
+                double sobrante = valores[tamano - 1];
+                int desplazamiento = desplazamientos[nivel] ? 1 : 0;
+                desplazamientos[nivel] = !desplazamientos[nivel];
+                tamanos[nivel] = 0;
+                retenidos -= tamano;
+                for (int i = desplazamiento; i < pares; i += 2) {
+                    insertar(nivel + 1, valores[i]);
+                }
+                if (pares != tamano) {
+                    // insertar puede haber cambiado el array del nivel siguiente, pero no el de este.
+                    niveles[nivel][0] = sobrante;
+                    tamanos[nivel] = 1;
+                    retenidos++;
+                }
+                return;
+            }
+        }
+    }
+}
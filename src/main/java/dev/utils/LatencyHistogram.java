@@ -0,0 +1,141 @@
+package dev.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Un histograma de latencias con memoria fija que se puede actualizar desde varios hilos sin bloqueos.
+ * Los tiempos se reparten en cubetas logaritmicas: cada potencia de dos de nanosegundos se divide en
+ * {@value #SUBCUBETAS} cubetas, asi que un percentil se conoce con un error relativo menor del 1/{@value #SUBCUBETAS}.
+ * La media y el maximo son exactos.
+ */
+public class LatencyHistogram implements LatencyHistogramMBean {
+    private static final int SUBCUBETAS = 8;
+    private static final int BITS_SUBCUBETA = 3;
+    /**
+     * Potencias de dos cubiertas: de 1 ns a 2^40 ns (unos 18 minutos); lo que pase de ahi va a la ultima cubeta.
+     */
+    private static final int POTENCIAS = 40;
+
+    private final AtomicLongArray cubetas = new AtomicLongArray(POTENCIAS * SUBCUBETAS);
+    private final LongAdder cuenta = new LongAdder();
+    private final LongAdder suma = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Registra una duracion.
+     *
+     * @param nanos La duracion en nanosegundos; las negativas cuentan como cero.
+     */
+    public void registrar(long nanos) {
+        long valor = Math.max(0, nanos);
+        cubetas.incrementAndGet(cubeta(valor));
+        cuenta.increment();
+        suma.add(valor);
+        max.accumulate(valor);
+    }
+
+    /**
+     * Estima un percentil de las duraciones registradas como el limite superior de la cubeta donde cae.
+     *
+     * @param fraccion La fraccion, entre 0 y 1; por ejemplo 0.99 para el percentil 99.
+     * @return El percentil en nanosegundos, o 0 si no hay duraciones.
+     */
+    public long percentilNanos(double fraccion) {
+        long total = 0;
+        long[] copia = new long[cubetas.length()];
+        for (int i = 0; i < copia.length; i++) {
+            copia[i] = cubetas.get(i);
+            total += copia[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long objetivo = Math.max(1, (long) Math.ceil(fraccion * total));
+        long acumulado = 0;
+        for (int i = 0; i < copia.length; i++) {
+            acumulado += copia[i];
+            if (acumulado >= objetivo) {
+                return Math.min(limiteSuperior(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    @Override
+    public long getCuenta() {
+        return cuenta.sum();
+    }
+
+    @Override
+    public double getMediaMicros() {
+        long n = cuenta.sum();
+        return n == 0 ? 0 : suma.sum() / (n * 1000.0);
+    }
+
+    @Override
+    public double getP50Micros() {
+        return percentilNanos(0.50) / 1000.0;
+    }
+
+    @Override
+    public double getP95Micros() {
+        return percentilNanos(0.95) / 1000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return percentilNanos(0.99) / 1000.0;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return max.get() / 1000.0;
+    }
+
+    /**
+     * Vacia el histograma. Las duraciones que se registren a la vez pueden conservarse o perderse.
+     */
+    @Override
+    public void reiniciar() {
+        for (int i = 0; i < cubetas.length(); i++) {
+            cubetas.set(i, 0);
+        }
+        cuenta.reset();
+        suma.reset();
+        max.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d media=%.1fus p50=%.1fus p95=%.1fus p99=%.1fus max=%.1fus",
+                getCuenta(), getMediaMicros(), getP50Micros(), getP95Micros(), getP99Micros(), getMaxMicros());
+    }
+
+    /**
+     * La cubeta de un valor: su potencia de dos y, dentro de ella, los {@value #BITS_SUBCUBETA} bits siguientes al mas alto.
+     */
+    private static int cubeta(long valor) {
+        if (valor < SUBCUBETAS) {
+            return (int) valor;
+        }
+        int potencia = 63 - Long.numberOfLeadingZeros(valor);
+        int sub = (int) (valor >>> (potencia - BITS_SUBCUBETA)) & (SUBCUBETAS - 1);
+        int indice = (potencia - BITS_SUBCUBETA + 1) * SUBCUBETAS + sub;
+        return Math.min(indice, POTENCIAS * SUBCUBETAS - 1);
+    }
+
+    /**
+     * El mayor valor que cae en una cubeta.
+     */
+    private static long limiteSuperior(int indice) {
+        if (indice < SUBCUBETAS) {
+            return indice;
+        }
+        int potencia = indice / SUBCUBETAS + BITS_SUBCUBETA - 1;
+        int sub = indice % SUBCUBETAS;
+        long base = (1L << potencia) + ((long) sub << (potencia - BITS_SUBCUBETA));
+        return base + (1L << (potencia - BITS_SUBCUBETA)) - 1;
+    }
+}
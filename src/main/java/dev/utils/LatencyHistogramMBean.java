@@ -0,0 +1,20 @@
+package dev.utils;
+
+/**
+ * Interfaz JMX de {@link LatencyHistogram}: los tiempos se publican en microsegundos.
+ */
+public interface LatencyHistogramMBean {
+    long getCuenta();
+
+    double getMediaMicros();
+
+    double getP50Micros();
+
+    double getP95Micros();
+
+    double getP99Micros();
+
+    double getMaxMicros();
+
+    void reiniciar();
+}
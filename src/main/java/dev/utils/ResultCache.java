@@ -0,0 +1,120 @@
+package dev.utils;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Una cache de resultados de consultas con un tamaño maximo, que descarta el resultado usado hace mas tiempo (LRU).
+ * Cada resultado se guarda con el tipo de consulta, sus parametros y la version de los datos sobre la que se
+ * calculo, de modo que al publicarse una version nueva los resultados anteriores dejan de encontrarse.
+ * Los resultados se comparten entre hilos, asi que no deben modificarse.
+ */
+public class ResultCache {
+    private final int capacidad;
+    private final LinkedHashMap<Clave, Object> resultados;
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+
+    /**
+     * Crea una cache vacia.
+     *
+     * @param capacidad El numero maximo de resultados guardados.
+     */
+    public ResultCache(int capacidad) {
+        this.capacidad = capacidad;
+        // Con accessOrder el orden de iteracion va del usado hace mas tiempo al ultimo usado.
+        this.resultados = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Clave, Object> masAntiguo) {
+                return size() > ResultCache.this.capacidad;
+            }
+        };
+    }
+
+    /**
+     * Obtiene el resultado de una consulta, calculandolo y guardandolo si no estaba en la cache.
+     * El calculo se hace fuera del bloqueo, por lo que dos hilos que piden a la vez la misma consulta
+     * pueden calcularla los dos; el resultado es el mismo y solo se guarda una vez.
+     *
+     * @param tipo       El tipo de consulta.
+     * @param version    La version de los datos sobre la que se hace la consulta.
+     * @param calcular   El calculo del resultado si no esta en la cache.
+     * @param parametros Los parametros de la consulta.
+     * @param <T>        El tipo del resultado.
+     * @return El resultado de la consulta.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T obtener(String tipo, long version, Supplier<T> calcular, Object... parametros) {
+        Clave clave = new Clave(tipo, version, parametros);
+        Object resultado;
+        synchronized (resultados) {
+            resultado = resultados.get(clave);
+        }
+        if (resultado != null) {
+            aciertos.incrementAndGet();
+            return (T) resultado;
+        }
+        fallos.incrementAndGet();
+        T calculado = calcular.get();
+        synchronized (resultados) {
+            Object previo = resultados.putIfAbsent(clave, calculado);
+            return previo != null ? (T) previo : calculado;
+        }
+    }
+
+    /**
+     * Descarta todos los resultados guardados. Los contadores de aciertos y fallos se conservan.
+     */
+    public void invalidar() {
+        synchronized (resultados) {
+            resultados.clear();
+        }
+    }
+
+    /**
+     * Obtiene el numero de resultados guardados.
+     *
+     * @return El numero de resultados.
+     */
+    public int tamano() {
+        synchronized (resultados) {
+            return resultados.size();
+        }
+    }
+
+    public long getAciertos() {
+        return aciertos.get();
+    }
+
+    public long getFallos() {
+        return fallos.get();
+    }
+
+    public int getCapacidad() {
+        return capacidad;
+    }
+
+    /**
+     * Clave de un resultado: tipo de consulta, version de los datos y parametros.
+     */
+    private record Clave(String tipo, long version, Object[] parametros) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Clave otra && version == otra.version && tipo.equals(otra.tipo)
+                    && Arrays.equals(parametros, otra.parametros);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * tipo.hashCode() + Long.hashCode(version)) + Arrays.hashCode(parametros);
+        }
+
+        @Override
+        public String toString() {
+            return tipo + Arrays.toString(parametros) + "@" + version;
+        }
+    }
+}
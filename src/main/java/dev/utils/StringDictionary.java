@@ -0,0 +1,183 @@
+package dev.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Un diccionario que asigna a cada cadena distinta un codigo entero consecutivo.
+ * Permite guardar columnas de texto repetitivo (localidades, provincias) como enteros.
+ * Los codigos se guardan en una tabla hash de direccionamiento abierto que tambien se puede consultar
+ * con un rango de un array de caracteres, sin crear un String para cada busqueda.
+ */
+public class StringDictionary {
+    private static final int LIBRE = -1;
+
+    private final List<String> valores;
+    private int[] hashes;
+    /**
+     * Tabla hash con el codigo de cada cadena, o {@link #LIBRE}. Su tamaño es siempre una potencia de dos.
+     */
+    private int[] tabla;
+
+    /**
+     * Crea un diccionario vacio.
+     */
+    public StringDictionary() {
+        this(new ArrayList<>(), new int[16], nuevaTabla(16));
+    }
+
+    private StringDictionary(List<String> valores, int[] hashes, int[] tabla) {
+        this.valores = valores;
+        this.hashes = hashes;
+        this.tabla = tabla;
+    }
+
+    /**
+     * Crea una copia independiente del diccionario, con los mismos codigos.
+     *
+     * @return La copia del diccionario.
+     */
+    public StringDictionary copiar() {
+        return new StringDictionary(new ArrayList<>(valores), hashes.clone(), tabla.clone());
+    }
+
+    /**
+     * Obtiene el codigo de una cadena, asignandole uno nuevo si todavia no estaba en el diccionario.
+     *
+     * @param valor La cadena que se desea codificar.
+     * @return El codigo entero de la cadena.
+     */
+    public int codificar(String valor) {
+        int hash = valor.hashCode();
+        int posicion = posicion(valor, hash);
+        return tabla[posicion] != LIBRE ? tabla[posicion] : insertar(posicion, valor, hash);
+    }
+
+    /**
+     * Obtiene el codigo del texto de un rango de caracteres, asignandole uno nuevo si todavia no estaba en el diccionario.
+     * Solo se crea un String cuando el texto es nuevo.
+     *
+     * @param texto  El array que contiene el texto.
+     * @param inicio La posicion del primer caracter, incluida.
+     * @param fin    La posicion del ultimo caracter, excluida.
+     * @return El codigo entero del texto.
+     */
+    public int codificar(char[] texto, int inicio, int fin) {
+        int hash = 0;
+        for (int i = inicio; i < fin; i++) {
+            hash = 31 * hash + texto[i];
+        }
+        int mascara = tabla.length - 1;
+        int posicion = mezclar(hash) & mascara;
+        while (tabla[posicion] != LIBRE) {
+            int codigo = tabla[posicion];
+            if (hashes[codigo] == hash && iguales(valores.get(codigo), texto, inicio, fin)) {
+                return codigo;
+            }
+            posicion = (posicion + 1) & mascara;
+        }
+        return insertar(posicion, new String(texto, inicio, fin - inicio), hash);
+    }
+
+    /**
+     * Busca el codigo de una cadena sin añadirla al diccionario.
+     *
+     * @param valor La cadena que se desea buscar; null nunca esta en el diccionario.
+     * @return El codigo de la cadena, o -1 si es null o no esta en el diccionario.
+     */
+    public int buscar(String valor) {
+        if (valor == null) {
+            return LIBRE;
+        }
+        return tabla[posicion(valor, valor.hashCode())];
+    }
+
+    /**
+     * Obtiene la cadena asociada a un codigo.
+     *
+     * @param codigo El codigo de la cadena.
+     * @return La cadena asociada al codigo.
+     */
+    public String decodificar(int codigo) {
+        return valores.get(codigo);
+    }
+
+    /**
+     * Obtiene el numero de cadenas distintas del diccionario.
+     *
+     * @return El numero de cadenas distintas.
+     */
+    public int tamano() {
+        return valores.size();
+    }
+
+    /**
+     * Obtiene la posicion de la tabla donde esta la cadena o, si no esta, el hueco libre donde iria.
+     */
+    private int posicion(String valor, int hash) {
+        int mascara = tabla.length - 1;
+        int posicion = mezclar(hash) & mascara;
+        while (tabla[posicion] != LIBRE) {
+            int codigo = tabla[posicion];
+            if (hashes[codigo] == hash && valores.get(codigo).equals(valor)) {
+                break;
+            }
+            posicion = (posicion + 1) & mascara;
+        }
+        return posicion;
+    }
+
+    private int insertar(int posicion, String valor, int hash) {
+        int codigo = valores.size();
+        valores.add(valor);
+        if (codigo == hashes.length) {
+            hashes = Arrays.copyOf(hashes, codigo * 2);
+        }
+        hashes[codigo] = hash;
+        tabla[posicion] = codigo;
+        // Se mantiene la ocupacion por debajo de la mitad para que las secuencias de sondeo sean cortas.
+        if (valores.size() * 2 > tabla.length) {
+            redimensionar();
+        }
+        return codigo;
+    }
+
+    private void redimensionar() {
+        int[] nueva = nuevaTabla(tabla.length * 2);
+        int mascara = nueva.length - 1;
+        for (int codigo = 0; codigo < valores.size(); codigo++) {
+            int posicion = mezclar(hashes[codigo]) & mascara;
+            while (nueva[posicion] != LIBRE) {
+                posicion = (posicion + 1) & mascara;
+            }
+            nueva[posicion] = codigo;
+        }
+        tabla = nueva;
+    }
+
+    private static boolean iguales(String valor, char[] texto, int inicio, int fin) {
+        if (valor.length() != fin - inicio) {
+            return false;
+        }
+        for (int i = inicio; i < fin; i++) {
+            if (valor.charAt(i - inicio) != texto[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reparte los bits altos del hash sobre los bajos, que son los que se usan como posicion.
+     */
+    private static int mezclar(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int[] nuevaTabla(int tamano) {
+        int[] tabla = new int[tamano];
+        Arrays.fill(tabla, LIBRE);
+        return tabla;
+    }
+}
@@ -0,0 +1,138 @@
+package dev.utils;
+
+import java.util.Arrays;
+
+/**
+ * Una cola de prioridad acotada que conserva los K elementos con mayor puntuacion de los que recibe.
+ * Es un monticulo de minimos sobre arrays de tipos primitivos: la raiz es el peor de los conservados, asi que
+ * cada elemento nuevo solo se compara con ella y solo entra si la supera. Usa memoria O(K) y cada oferta
+ * cuesta O(log K). Los elementos son enteros (por ejemplo, indices de fila); a igual puntuacion gana el menor,
+ * de modo que el resultado no depende del orden en que se ofrecen.
+ */
+public class TopK {
+    private final int k;
+    private int[] elementos;
+    private double[] puntuaciones;
+    private int tamano;
+
+    /**
+     * Crea una cola vacia.
+     *
+     * @param k El numero de elementos que se conservan, mayor que cero.
+     */
+    public TopK(int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("K debe ser mayor que cero: " + k);
+        }
+        this.k = k;
+        // Los arrays crecen hasta K segun hace falta, para que muchos grupos pequeños no reserven K huecos cada uno.
+        int capacidad = Math.min(k, 16);
+        this.elementos = new int[capacidad];
+        this.puntuaciones = new double[capacidad];
+    }
+
+    /**
+     * Ofrece un elemento a la cola. Las puntuaciones NaN se ignoran.
+     *
+     * @param elemento   El elemento.
+     * @param puntuacion Su puntuacion; se conservan las mayores.
+     */
+    public void ofrecer(int elemento, double puntuacion) {
+        if (Double.isNaN(puntuacion)) {
+            return;
+        }
+        if (tamano < k) {
+            if (tamano == elementos.length) {
+                int capacidad = Math.min(k, tamano * 2);
+                elementos = Arrays.copyOf(elementos, capacidad);
+                puntuaciones = Arrays.copyOf(puntuaciones, capacidad);
+            }
+            colocar(tamano, elemento, puntuacion);
+            subir(tamano++);
+        } else if (peor(puntuaciones[0], elementos[0], puntuacion, elemento)) {
+            colocar(0, elemento, puntuacion);
+            bajar(0);
+        }
+    }
+
+    /**
+     * Obtiene el numero de elementos conservados, como mucho K.
+     *
+     * @return El numero de elementos.
+     */
+    public int tamano() {
+        return tamano;
+    }
+
+    /**
+     * Obtiene los elementos conservados ordenados de mayor a menor puntuacion.
+     * La cola no se modifica y puede seguir recibiendo elementos.
+     *
+     * @return Un array nuevo con los elementos.
+     */
+    public int[] ordenados() {
+        Integer[] posiciones = new Integer[tamano];
+        for (int i = 0; i < tamano; i++) {
+            posiciones[i] = i;
+        }
+        Arrays.sort(posiciones, (a, b) -> a.equals(b) ? 0 : peor(a, b) ? 1 : -1);
+        int[] resultado = new int[tamano];
+        for (int i = 0; i < tamano; i++) {
+            resultado[i] = elementos[posiciones[i]];
+        }
+        return resultado;
+    }
+
+    /**
+     * Indica si el elemento A, con su puntuacion, queda por detras del elemento B.
+     */
+    private static boolean peor(double puntuacionA, int elementoA, double puntuacionB, int elementoB) {
+        return puntuacionA < puntuacionB || (puntuacionA == puntuacionB && elementoA > elementoB);
+    }
+
+    private boolean peor(int i, int j) {
+        return peor(puntuaciones[i], elementos[i], puntuaciones[j], elementos[j]);
+    }
+
+    private void colocar(int posicion, int elemento, double puntuacion) {
+        elementos[posicion] = elemento;
+        puntuaciones[posicion] = puntuacion;
+    }
+
+    private void subir(int posicion) {
+        while (posicion > 0) {
+            int padre = (posicion - 1) >>> 1;
+            if (!peor(posicion, padre)) {
+                return;
+            }
+            intercambiar(posicion, padre);
+            posicion = padre;
+        }
+    }
+
+    private void bajar(int posicion) {
+        while (true) {
+            int menor = posicion;
+            int izquierdo = 2 * posicion + 1;
+            int derecho = izquierdo + 1;
+            if (izquierdo < tamano && peor(izquierdo, menor)) {
+                menor = izquierdo;
+            }
+            if (derecho < tamano && peor(derecho, menor)) {
+                menor = derecho;
+            }
+            if (menor == posicion) {
+                return;
+            }
+            intercambiar(posicion, menor);
+            posicion = menor;
+        }
+    }
+
+    private void intercambiar(int i, int j) {
+        int elemento = elementos[i];
+        double puntuacion = puntuaciones[i];
+        colocar(i, elementos[j], puntuaciones[j]);
+        colocar(j, elemento, puntuacion);
+    }
+}
@@ -1,12 +1,22 @@
 DROP TABLE IF EXISTS Aemet;
+DROP TABLE IF EXISTS Estacion;
+CREATE TABLE IF NOT EXISTS Estacion (
+                                       id INTEGER PRIMARY KEY AUTOINCREMENT,
+                                       localidad TEXT NOT NULL,
+                                       provincia TEXT NOT NULL,
+                                       UNIQUE (localidad, provincia)
+);
 CREATE TABLE IF NOT EXISTS Aemet (
                                        id INTEGER PRIMARY KEY AUTOINCREMENT,
-                                       localidad TEXT,
-                                       provincia TEXT,
+                                       estacionId INTEGER NOT NULL REFERENCES Estacion (id),
                                        temperaturaMax REAL,
-                                       horaTemperaturaMax TEXT,
+                                       horaTemperaturaMax INTEGER,
                                        temperaturaMin REAL,
-                                       horaTemperaturaMin TEXT,
+                                       horaTemperaturaMin INTEGER,
                                        precipitacion REAL,
-                                       dia TEXT
+                                       dia INTEGER
 );
+CREATE UNIQUE INDEX IF NOT EXISTS idx_aemet_estacion_dia ON Aemet (estacionId, dia);
+CREATE INDEX IF NOT EXISTS idx_aemet_dia ON Aemet (dia);
+CREATE INDEX IF NOT EXISTS idx_estacion_provincia ON Estacion (provincia);
+PRAGMA user_version = 4;
@@ -0,0 +1,29 @@
+-- Esquema 2: dia como dia epoch y horas como minuto del dia, con indices para las busquedas por dia.
+CREATE TABLE Aemet_v2 (
+                                       id INTEGER PRIMARY KEY AUTOINCREMENT,
+                                       localidad TEXT,
+                                       provincia TEXT,
+                                       temperaturaMax REAL,
+                                       horaTemperaturaMax INTEGER,
+                                       temperaturaMin REAL,
+                                       horaTemperaturaMin INTEGER,
+                                       precipitacion REAL,
+                                       dia INTEGER
+);
+INSERT INTO Aemet_v2 (id, localidad, provincia, temperaturaMax, horaTemperaturaMax, temperaturaMin, horaTemperaturaMin, precipitacion, dia)
+SELECT id, localidad, provincia,
+       temperaturaMax,
+       CAST(substr(horaTemperaturaMax, 1, instr(horaTemperaturaMax, ':') - 1) AS INTEGER) * 60
+           + CAST(substr(horaTemperaturaMax, instr(horaTemperaturaMax, ':') + 1, 2) AS INTEGER),
+       temperaturaMin,
+       CAST(substr(horaTemperaturaMin, 1, instr(horaTemperaturaMin, ':') - 1) AS INTEGER) * 60
+           + CAST(substr(horaTemperaturaMin, instr(horaTemperaturaMin, ':') + 1, 2) AS INTEGER),
+       precipitacion,
+       CAST(julianday(dia) - julianday('1970-01-01') AS INTEGER)
+FROM Aemet;
+DROP TABLE Aemet;
+ALTER TABLE Aemet_v2 RENAME TO Aemet;
+CREATE INDEX IF NOT EXISTS idx_aemet_provincia_dia ON Aemet (provincia, dia);
+CREATE INDEX IF NOT EXISTS idx_aemet_dia ON Aemet (dia);
+CREATE INDEX IF NOT EXISTS idx_aemet_localidad_dia ON Aemet (localidad, dia);
+PRAGMA user_version = 2;
@@ -0,0 +1,32 @@
+-- Esquema 3: catalogo de estaciones; cada medicion guarda el id de su estacion en lugar de la localidad y la provincia.
+CREATE TABLE Estacion (
+                                       id INTEGER PRIMARY KEY AUTOINCREMENT,
+                                       localidad TEXT NOT NULL,
+                                       provincia TEXT NOT NULL,
+                                       UNIQUE (localidad, provincia)
+);
+INSERT INTO Estacion (localidad, provincia)
+SELECT COALESCE(localidad, ''), COALESCE(provincia, '')
+FROM Aemet
+GROUP BY COALESCE(localidad, ''), COALESCE(provincia, '')
+ORDER BY MIN(id);
+CREATE TABLE Aemet_v3 (
+                                       id INTEGER PRIMARY KEY AUTOINCREMENT,
+                                       estacionId INTEGER NOT NULL REFERENCES Estacion (id),
+                                       temperaturaMax REAL,
+                                       horaTemperaturaMax INTEGER,
+                                       temperaturaMin REAL,
+                                       horaTemperaturaMin INTEGER,
+                                       precipitacion REAL,
+                                       dia INTEGER
+);
+INSERT INTO Aemet_v3 (id, estacionId, temperaturaMax, horaTemperaturaMax, temperaturaMin, horaTemperaturaMin, precipitacion, dia)
+SELECT a.id, e.id, a.temperaturaMax, a.horaTemperaturaMax, a.temperaturaMin, a.horaTemperaturaMin, a.precipitacion, a.dia
+FROM Aemet a
+JOIN Estacion e ON e.localidad = COALESCE(a.localidad, '') AND e.provincia = COALESCE(a.provincia, '');
+DROP TABLE Aemet;
+ALTER TABLE Aemet_v3 RENAME TO Aemet;
+CREATE INDEX IF NOT EXISTS idx_aemet_estacion_dia ON Aemet (estacionId, dia);
+CREATE INDEX IF NOT EXISTS idx_aemet_dia ON Aemet (dia);
+CREATE INDEX IF NOT EXISTS idx_estacion_provincia ON Estacion (provincia);
+PRAGMA user_version = 3;
@@ -0,0 +1,6 @@
+-- Esquema 4: una sola medicion por estacion y dia, para que volver a importar un fichero no duplique filas.
+-- De cada grupo de duplicados se conserva la ultima medicion guardada, la misma que dejaria una importacion con upsert.
+DELETE FROM Aemet WHERE id NOT IN (SELECT MAX(id) FROM Aemet GROUP BY estacionId, dia);
+DROP INDEX IF EXISTS idx_aemet_estacion_dia;
+CREATE UNIQUE INDEX IF NOT EXISTS idx_aemet_estacion_dia ON Aemet (estacionId, dia);
+PRAGMA user_version = 4;